@@ -0,0 +1,134 @@
+package com.sunflowers.ecommerce.product.service;
+
+import com.sunflowers.ecommerce.product.entity.Product;
+import com.sunflowers.ecommerce.product.request.ProductRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares catalog listing pages resolved by the {@link CatalogReadModel} with the same pages resolved by the JPA
+ * query, over 100k products and 1M inventories in a Postgres container. Run with {@code ./gradlew jmh}.
+ * <p>
+ * Both paths then load the products of the page by ID in the same way, so the difference is the cost of filtering,
+ * sorting, counting and paging.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CatalogReadModelBenchmark {
+
+    private static final int PRODUCTS = 100_000;
+    private static final int INVENTORIES_PER_PRODUCT = 10;
+
+    /**
+     * Whether the listing IDs come from the read model or from the database.
+     */
+    @Param({"true", "false"})
+    public boolean readModel;
+
+    @Param({"unfiltered", "categories", "sizesAndColors", "priceRange"})
+    public String filter;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        context = new SpringApplicationBuilder(CatalogConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "catalog.read-model.enabled=" + readModel)
+                .run();
+
+        CatalogDataset.seed(context.getBean(JdbcTemplate.class), PRODUCTS, INVENTORIES_PER_PRODUCT);
+        if (readModel) {
+            context.getBean(CatalogReadModel.class).load();
+        }
+        productService = context.getBean(ProductService.class);
+        request = request(filter);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public Page<Product> listingPage() {
+        return productService.getProducts(request);
+    }
+
+    private static ProductRequest request(String filter) {
+        ProductRequest request = new ProductRequest();
+        request.setPageSize(20);
+        request.setSortBy("price");
+        switch (filter) {
+            case "categories" -> request.setCategories(List.of("category-1", "category-8"));
+            case "sizesAndColors" -> {
+                request.setSizes(List.of("M", "L"));
+                request.setColors(List.of("color-1", "color-2"));
+            }
+            case "priceRange" -> {
+                request.setMinPrice(BigDecimal.valueOf(50));
+                request.setMaxPrice(BigDecimal.valueOf(300));
+                request.setPage(100);
+            }
+            default -> {
+            }
+        }
+        return request;
+    }
+
+    /**
+     * The persistence layer of the catalog, without the web, security and mail layers of the application.
+     */
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            JdbcTemplateAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EntityScan("com.sunflowers.ecommerce")
+    @EnableJpaRepositories("com.sunflowers.ecommerce.product.repository")
+    @Import({ProductService.class, CatalogReadModel.class})
+    static class CatalogConfiguration {
+    }
+}
@@ -1,6 +1,7 @@
 package com.sunflowers.ecommerce.auth.config;
 
 import com.sunflowers.ecommerce.auth.repository.UserRepository;
+import com.sunflowers.ecommerce.auth.service.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -23,6 +24,8 @@ public class ApplicationConfig {
     @Autowired
     private final UserRepository userRepository;
 
+    private final UserDetailsCache userDetailsCache;
+
     /**
      * Creates and configures the authentication manager bean.
      *
@@ -50,13 +53,14 @@ public class ApplicationConfig {
 
     /**
      * Creates and configures the user details service bean.
+     * Lookups are served from the {@link UserDetailsCache}, which is evicted whenever a user is saved.
      *
      * @return the configured UserDetailsService
      */
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByEmail(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return username -> userDetailsCache.get(username, email -> userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found")));
     }
 
     /**
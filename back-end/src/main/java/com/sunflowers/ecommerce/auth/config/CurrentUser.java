@@ -0,0 +1,21 @@
+package com.sunflowers.ecommerce.auth.config;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the {@link com.sunflowers.ecommerce.auth.entity.User} resolved by {@link JwtAuthenticationFilter}
+ * into a controller method parameter.
+ * The user is loaded once per request by the filter, so controllers and services must not look it up again.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@AuthenticationPrincipal
+public @interface CurrentUser {
+}
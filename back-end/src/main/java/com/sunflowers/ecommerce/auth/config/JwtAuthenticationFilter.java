@@ -1,6 +1,7 @@
 package com.sunflowers.ecommerce.auth.config;
 
 import com.sunflowers.ecommerce.auth.service.JwtService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,6 +34,7 @@ public class JwtAuthenticationFilter  extends OncePerRequestFilter {
 
     /**
      * Filters each HTTP request to check for a valid JWT token and sets the authentication context if valid.
+     * The user is loaded once here and stored as the authentication principal, see {@link CurrentUser}.
      *
      * @param request     the HTTP request
      * @param response    the HTTP response
@@ -44,17 +46,18 @@ public class JwtAuthenticationFilter  extends OncePerRequestFilter {
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
 
         final String token = getTokenFromRequest(request);
-        final String username;
 
         if(token == null){
             filterChain.doFilter(request, response);
             return;
         }
 
-        username = jwtService.extractUsername(token);
+        final Claims claims = jwtService.extractAllClaims(token);
+        final String username = claims.getSubject();
 
-        if(username != null && userDetailsService.loadUserByUsername(username) != null){
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        final UserDetails userDetails = username != null ? userDetailsService.loadUserByUsername(username) : null;
+
+        if(userDetails != null){
 
             List<GrantedAuthority> authorityList;
 
@@ -64,7 +67,7 @@ public class JwtAuthenticationFilter  extends OncePerRequestFilter {
                 authorityList = AuthorityUtils.createAuthorityList("ROLE_USER");
             }
 
-            if(jwtService.validateToken(token, userDetails)){
+            if(jwtService.validateClaims(claims, userDetails)){
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -1,5 +1,6 @@
 package com.sunflowers.ecommerce.auth.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -55,6 +56,9 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(authorize -> authorize
+                        // Async dispatches only write the result of a request already authorized on its first dispatch,
+                        // and the JWT filter does not run again for them
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(PUBLIC_PATHS).permitAll()
 
                         .requestMatchers(USER_PATHS).hasAnyRole(USER.name(), ADMIN.name())
@@ -3,9 +3,11 @@ package com.sunflowers.ecommerce.auth.controller;
 import com.sunflowers.ecommerce.auth.entity.Country;
 import com.sunflowers.ecommerce.auth.repository.CountryRepository;
 import com.sunflowers.ecommerce.auth.response.ErrorResponse;
+import com.sunflowers.ecommerce.response.CachedResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.NoSuchElementException;
 
@@ -16,9 +18,13 @@ public class CountryController {
     @Autowired
     private CountryRepository countryRepository;
 
+    @Autowired
+    private CachedResponses cachedResponses;
+
     @GetMapping("/")
-    public ResponseEntity<Iterable<Country>> getCountry() {
-        return ResponseEntity.ok(countryRepository.findAll());
+    public ResponseEntity<Iterable<Country>> getCountry(WebRequest request) {
+        return cachedResponses.respond(request, CachedResponses.Resource.COUNTRIES, null,
+                () -> ResponseEntity.ok(countryRepository.findAll()));
     }
 
     @GetMapping("/{countryCode}")
@@ -1,5 +1,6 @@
 package com.sunflowers.ecommerce.auth.controller;
 
+import com.sunflowers.ecommerce.auth.config.CurrentUser;
 import com.sunflowers.ecommerce.auth.entity.User;
 import com.sunflowers.ecommerce.auth.request.ChangePasswordRequest;
 import com.sunflowers.ecommerce.auth.request.ChangePhoneRequest;
@@ -29,18 +30,18 @@ public class UserController {
     private AddressService addressService;
 
     @GetMapping("/profile")
-    public User getUserProfile(@RequestHeader(name = "Authorization") String authorizationHeader) {
-        return userService.getUserProfile(authorizationHeader);
+    public User getUserProfile(@CurrentUser User user) {
+        return userService.getUserProfile(user);
     }
 
     @PostMapping("/change-password")
-    public ResponseEntity<GeneralResponse<Void>> changePassword(@RequestHeader(name = "Authorization") String authorizationHeader, @RequestBody ChangePasswordRequest passwordRequest) {
-        return userService.changePassword(authorizationHeader, passwordRequest);
+    public ResponseEntity<GeneralResponse<Void>> changePassword(@CurrentUser User user, @RequestBody ChangePasswordRequest passwordRequest) {
+        return userService.changePassword(user, passwordRequest);
     }
 
     @PostMapping("/change-phone")
-    public ResponseEntity<GeneralResponse<Void>> changePhone(@RequestHeader(name = "Authorization") String authorizationHeader, @RequestBody ChangePhoneRequest phoneRequest) {
-        return userService.changePhone(authorizationHeader, phoneRequest);
+    public ResponseEntity<GeneralResponse<Void>> changePhone(@CurrentUser User user, @RequestBody ChangePhoneRequest phoneRequest) {
+        return userService.changePhone(user, phoneRequest);
     }
 
 
@@ -57,17 +58,17 @@ public class UserController {
     }
 
     @GetMapping("/address")
-    public MappingJacksonValue getUserAddress(@NonNull @RequestHeader(name = "Authorization") String authorizationHeader) {
-        return addressService.getUserAddress(authorizationHeader);
+    public MappingJacksonValue getUserAddress(@NonNull @CurrentUser User user) {
+        return addressService.getUserAddress(user);
     }
 
     @GetMapping("/address/{addressId}")
-    public MappingJacksonValue getUserAddress(@NonNull @RequestHeader(name = "Authorization") String authorizationHeader, @PathVariable(name = "addressId") String addressId) {
-        return addressService.getUserAddress(authorizationHeader, addressId);
+    public MappingJacksonValue getUserAddress(@NonNull @CurrentUser User user, @PathVariable(name = "addressId") String addressId) {
+        return addressService.getUserAddress(user, addressId);
     }
 
     @PostMapping("/address")
-    public MappingJacksonValue addUserAddress(@NonNull @RequestHeader(name = "Authorization") String authorizationHeader, @RequestBody CreateAddressRequest address) {
-        return addressService.createAddress(authorizationHeader, address);
+    public MappingJacksonValue addUserAddress(@NonNull @CurrentUser User user, @RequestBody CreateAddressRequest address) {
+        return addressService.createAddress(user, address);
     }
 }
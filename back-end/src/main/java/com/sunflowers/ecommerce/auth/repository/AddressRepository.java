@@ -1,12 +1,16 @@
 package com.sunflowers.ecommerce.auth.repository;
 
 import com.sunflowers.ecommerce.auth.entity.Address;
+import com.sunflowers.ecommerce.auth.entity.User;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface AddressRepository extends CrudRepository<Address, UUID> {
 
+    List<Address> findAllByUser(User user);
+
 }
@@ -21,17 +21,11 @@ public class AddressService {
     @Autowired
     private CountryRepository countryRepository;
 
-    @Autowired
-    private AuthService authService;
-
-    public MappingJacksonValue getUserAddress(String authorizationHeader) {
-        User user = authService.validateAuthorization(authorizationHeader);
-        return EntityMapping.getSimpleBeanPropertyFilter(user.getAddresses(), "AddressFilter", "id", "street", "zipCode", "country", "phone", "city", "fullName", "personId");
+    public MappingJacksonValue getUserAddress(User user) {
+        return EntityMapping.getSimpleBeanPropertyFilter(addressRepository.findAllByUser(user), "AddressFilter", "id", "street", "zipCode", "country", "phone", "city", "fullName", "personId");
     }
 
-    public MappingJacksonValue createAddress(String authorizationHeader, CreateAddressRequest address) {
-        User user = authService.validateAuthorization(authorizationHeader);
-
+    public MappingJacksonValue createAddress(User user, CreateAddressRequest address) {
         validateAddress(address);
 
         Address newAddress = Address.builder()
@@ -78,8 +72,7 @@ public class AddressService {
         }
     }
 
-    public MappingJacksonValue getUserAddress(String authorizationHeader, String addressId) {
-        User user = authService.validateAuthorization(authorizationHeader);
+    public MappingJacksonValue getUserAddress(User user, String addressId) {
         Address address = addressRepository.findById(UUID.fromString(addressId))
                 .orElseThrow(() -> new IllegalArgumentException("Address not found"));
 
@@ -15,6 +15,7 @@ import com.sunflowers.ecommerce.email.EmailService;
 import com.sunflowers.ecommerce.email.MailBody;
 import com.sunflowers.ecommerce.utils.EntityMapping;
 import com.sunflowers.ecommerce.utils.FrontLinks;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AuthorizationServiceException;
@@ -25,6 +26,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
 import java.util.Date;
@@ -80,6 +82,7 @@ public class AuthService {
      * @param registerRequest the registration request containing user details
      * @return the authentication response containing the JWT token
      */
+    @Transactional
     public AuthResponse register(RegisterRequest registerRequest) {
         if (userRepository.existsByEmail(registerRequest.getEmail()))  {
             throw new BadCredentialsException("Email already registered");
@@ -106,12 +109,13 @@ public class AuthService {
                 + "\n\nIf you did not request this code, please ignore this email."
                 + "\n\n\n\n" + FrontLinks.VERIFICATION_CODE + "?token=" + token;
 
-        emailService.sendEmail(
+        emailService.queueEmail(
                 MailBody.builder()
                 .to(registerRequest.getEmail())
                 .subject("Email Verification")
                 .text(text)
-                .build()
+                .build(),
+                "register:" + token
         );
 
         return AuthResponse.builder()
@@ -192,24 +196,24 @@ public class AuthService {
     }
 
     public User validateAuthorization(String authToken) {
-        String token = JwtAuthenticationFilter.getTokenFromHeader(authToken);
+        Claims claims = jwtService.extractAllClaims(JwtAuthenticationFilter.getTokenFromHeader(authToken));
 
-        User user = userRepository.findByEmail(jwtService.extractUsername(token))
+        User user = userRepository.findByEmail(claims.getSubject())
                 .orElseThrow(() -> new AuthorizationServiceException("User not found"));
 
-        if(!jwtService.validateToken(token, user)){
+        if(!jwtService.validateClaims(claims, user)){
             throw new AuthorizationServiceException("Unauthorized");
         }
         return user;
     }
 
     public User validateAuthorization(String authToken, String email) {
-        String token = JwtAuthenticationFilter.getTokenFromHeader(authToken);
+        Claims claims = jwtService.extractAllClaims(JwtAuthenticationFilter.getTokenFromHeader(authToken));
 
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new AuthorizationServiceException("User not found"));
 
-        if(!jwtService.validateToken(token, user) || !user.getEmail().equalsIgnoreCase(jwtService.extractUsername(token))){
+        if(!jwtService.validateClaims(claims, user) || !user.getEmail().equalsIgnoreCase(claims.getSubject())){
             throw new AuthorizationServiceException("Unauthorized - invalid session or email");
         }
         return user;
@@ -1,21 +1,36 @@
 package com.sunflowers.ecommerce.auth.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.function.Function;
 
 /**
  * Service class for handling JWT operations such as token generation and validation.
+ * Verified claims are cached by token hash until the token expires (or the configured TTL is reached),
+ * so the filter and the services that inspect the same token only verify its signature once.
  */
 @Service
 public class JwtService {
@@ -23,6 +38,36 @@ public class JwtService {
     @Value("${TOKEN_KEY}")
     private String SECRET_KEY;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.cache.max-ttl:PT15M}")
+    private Duration cacheMaxTtl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SecretKey key;
+    private JwtParser parser;
+    private Cache<String, Claims> verifiedClaims;
+
+    /**
+     * Decodes the signing key, builds the reusable parser and registers the verified-claims cache metrics.
+     */
+    @PostConstruct
+    void init() {
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new ClaimsExpiry(cacheMaxTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwt.verified-claims");
+    }
+
     /**
      * Generates a JWT token for the given user with a default expiration date of 24 hours.
      *
@@ -68,8 +113,7 @@ public class JwtService {
      * @return the secret key
      */
     private SecretKey getKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return key;
     }
 
     /**
@@ -90,23 +134,37 @@ public class JwtService {
      * @return true if the token is valid, false otherwise
      */
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateClaims(extractAllClaims(removeBearer(token.trim())), userDetails);
+    }
+
+    /**
+     * Validates already verified claims against the user details.
+     *
+     * @param claims      the verified claims of the token
+     * @param userDetails the user details
+     * @return true if the claims belong to the user and are not expired, false otherwise
+     */
+    public boolean validateClaims(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
     /**
      * Extracts all claims from the given JWT token.
+     * The signature is only verified the first time a token is seen; later calls are served from the cache
+     * until the token expires.
      *
      * @param token the JWT token
      * @return the claims
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public Claims extractAllClaims(String token) {
+        String cacheKey = hash(token);
+        Claims claims = verifiedClaims.getIfPresent(cacheKey);
+        if (claims != null) {
+            return claims;
+        }
+        claims = parser.parseSignedClaims(token).getPayload();
+        verifiedClaims.put(cacheKey, claims);
+        return claims;
     }
 
     /**
@@ -146,4 +204,44 @@ public class JwtService {
     private String removeBearer(String token){
         return token.replace("Bearer ", "");
     }
+
+    /**
+     * Hashes the token so the raw credential is never kept as a cache key.
+     *
+     * @param token the JWT token
+     * @return the hex encoded SHA-256 of the token
+     */
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Expires cached claims at the token expiration, capped by the configured maximum TTL.
+     */
+    private record ClaimsExpiry(Duration maxTtl) implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            if (claims.getExpiration() == null) {
+                return maxTtl.toNanos();
+            }
+            long untilExpiration = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return Math.max(0, Math.min(Duration.ofMillis(untilExpiration).toNanos(), maxTtl.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -15,6 +15,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.Random;
@@ -30,6 +31,7 @@ public class PasswordResetService {
     private final EmailService emailService;
     private final PasswordResetRepository passwordResetRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserService userService;
 
     /**
      * This method sends an OTP to the user's email address for password reset.
@@ -37,6 +39,7 @@ public class PasswordResetService {
      * @param emailRequest the email request containing the user's email
      * @return a general response indicating the status of the operation
      */
+    @Transactional
     public GeneralResponse<String> verifyEmail(VerifyEmailRequest emailRequest) {
 
         User user = userRepository.findByEmail(emailRequest.getEmail())
@@ -55,12 +58,13 @@ public class PasswordResetService {
                 + "\n\nIf you did not request this code, please ignore this email."
                 + "\n\n\n\n" + FrontLinks.RESET_PASSWORD + "?token=" + user.getId().toString();
 
-        emailService.sendEmail(
+        emailService.queueEmail(
                 MailBody.builder()
                 .to(emailRequest.getEmail())
                 .subject("OTP for Forgot Password request")
                 .text(text)
-                .build()
+                .build(),
+                "password-reset:" + user.getId() + ":" + prt.getExpirationTime().getTime()
         );
 
         passwordResetRepository.findById(user.getId())
@@ -89,11 +93,8 @@ public class PasswordResetService {
             throw new IllegalArgumentException("Password must contain at least 8 characters, 1 uppercase letter, 1 lowercase letter, 1 number and 1 special character");
         }
 
-        User user = userRepository.findById(prt.getId())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        userRepository.save(user);
+        String password = passwordEncoder.encode(request.getPassword());
+        userService.updateUser(prt.getId(), user -> user.setPassword(password));
 
         passwordResetRepository.delete(prt);
 
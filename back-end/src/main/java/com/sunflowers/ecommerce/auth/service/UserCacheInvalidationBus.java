@@ -0,0 +1,25 @@
+package com.sunflowers.ecommerce.auth.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Propagates user cache invalidations between application nodes.
+ * Without an implementation in the context the {@link UserDetailsCache} only evicts locally.
+ */
+public interface UserCacheInvalidationBus {
+
+    /**
+     * Notifies every node that the cached user with the given email is stale.
+     *
+     * @param email the email of the user to evict
+     */
+    void publish(String email);
+
+    /**
+     * Registers a listener for invalidations published by any node.
+     * The listener receives {@code null} when invalidations may have been missed and the whole cache must be cleared.
+     *
+     * @param listener the listener receiving the email of the user to evict
+     */
+    void subscribe(Consumer<String> listener);
+}
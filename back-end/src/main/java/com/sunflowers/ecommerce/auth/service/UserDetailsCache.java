@@ -0,0 +1,72 @@
+package com.sunflowers.ecommerce.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sunflowers.ecommerce.auth.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Local near-cache in front of the user lookup done for every authenticated request.
+ * Entries expire after the configured TTL and must be evicted whenever a user is saved.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final Cache<String, User> users;
+    private final UserCacheInvalidationBus invalidationBus;
+
+    public UserDetailsCache(@Value("${user.cache.max-size:10000}") long maxSize,
+                            @Value("${user.cache.ttl:PT5M}") Duration ttl,
+                            MeterRegistry meterRegistry,
+                            ObjectProvider<UserCacheInvalidationBus> invalidationBus) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.invalidationBus = invalidationBus.getIfAvailable();
+        if (this.invalidationBus != null) {
+            this.invalidationBus.subscribe(this::evictLocal);
+        }
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "user.details");
+    }
+
+    /**
+     * Returns the cached user for the given email, loading it on a miss.
+     * Nothing is cached when the loader throws.
+     *
+     * @param email  the email of the user
+     * @param loader the function loading the user from the database
+     * @return the user
+     */
+    public User get(String email, Function<String, User> loader) {
+        return users.get(email, loader);
+    }
+
+    /**
+     * Evicts the user on this node and, when a bus is configured, on every other node.
+     *
+     * @param email the email of the user to evict
+     */
+    public void evict(String email) {
+        evictLocal(email);
+        if (invalidationBus != null) {
+            invalidationBus.publish(email);
+        }
+    }
+
+    private void evictLocal(String email) {
+        if (email == null) {
+            users.invalidateAll();
+        } else {
+            users.invalidate(email);
+        }
+    }
+}
@@ -7,9 +7,16 @@ import com.sunflowers.ecommerce.auth.request.ChangePhoneRequest;
 import com.sunflowers.ecommerce.response.GeneralResponse;
 import com.sunflowers.ecommerce.utils.EntityMapping;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.converter.json.MappingJacksonValue;
@@ -29,23 +36,58 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthService authService;
+    private final UserDetailsCache userDetailsCache;
 
     public User getUserByEmail(String email) {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
-    public User getUserProfile(String authorizationHeader) {
-        return authService.validateAuthorization(authorizationHeader);
+    public User getUserProfile(User user) {
+        return user;
     }
 
     public List<User> getAllUsers() {
         return (List<User>) userRepository.findAll();
     }
 
-    public ResponseEntity<GeneralResponse<Void>> changePassword(String authorizationHeader, ChangePasswordRequest passwordRequest) {
-        User user = authService.validateAuthorization(authorizationHeader);
+    /**
+     * Applies a change to the user and saves it, evicting it from the user details cache once the transaction
+     * commits. The change is made on a copy loaded from the database, never on the cached instance shared by the
+     * concurrent requests of the user, so a failed save leaves the cache as it was.
+     * Every change to credentials, contact data or role must go through this method.
+     *
+     * @param id     the id of the user to change
+     * @param change the change to apply
+     * @return the saved user
+     */
+    @Transactional
+    public User updateUser(UUID id, Consumer<User> change) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        change.accept(user);
+        User saved = userRepository.save(user);
+
+        evictAfterCommit(saved.getEmail());
+        return saved;
+    }
+
+    private void evictAfterCommit(String email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userDetailsCache.evict(email);
+            return;
+        }
 
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userDetailsCache.evict(email);
+            }
+        });
+    }
+
+    @Transactional
+    public ResponseEntity<GeneralResponse<Void>> changePassword(User user, ChangePasswordRequest passwordRequest) {
         if (!passwordEncoder.matches(passwordRequest.getOldPassword(), user.getPassword())) {
             return ResponseEntity.badRequest()
                     .body(
@@ -79,8 +121,8 @@ public class UserService {
                     );
         }
 
-        user.setPassword(passwordEncoder.encode(passwordRequest.getNewPassword()));
-        userRepository.save(user);
+        String password = passwordEncoder.encode(passwordRequest.getNewPassword());
+        updateUser(user.getId(), changed -> changed.setPassword(password));
 
         return ResponseEntity.ok(
                 GeneralResponse.<Void>builder()
@@ -91,9 +133,8 @@ public class UserService {
         );
     }
 
-    public ResponseEntity<GeneralResponse<Void>> changePhone(String authorizationHeader, ChangePhoneRequest phoneRequest) {
-        User user = authService.validateAuthorization(authorizationHeader);
-
+    @Transactional
+    public ResponseEntity<GeneralResponse<Void>> changePhone(User user, ChangePhoneRequest phoneRequest) {
         if (!authService.validatePhoneNumberPublic(phoneRequest.getNewPhone())) {
             return ResponseEntity.badRequest()
                     .body(
@@ -105,8 +146,7 @@ public class UserService {
                     );
         }
 
-        user.setPhone(phoneRequest.getNewPhone());
-        userRepository.save(user);
+        updateUser(user.getId(), changed -> changed.setPhone(phoneRequest.getNewPhone()));
 
         return ResponseEntity.ok(
                 GeneralResponse.<Void>builder()
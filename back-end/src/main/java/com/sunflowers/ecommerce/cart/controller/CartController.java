@@ -1,12 +1,13 @@
 package com.sunflowers.ecommerce.cart.controller;
 
+import com.sunflowers.ecommerce.auth.config.CurrentUser;
+import com.sunflowers.ecommerce.auth.entity.User;
 import com.sunflowers.ecommerce.cart.dto.UserCartsDto;
 import com.sunflowers.ecommerce.cart.entity.CartItem;
 import com.sunflowers.ecommerce.cart.request.AddProductToCartRequest;
 import com.sunflowers.ecommerce.cart.service.CartService;
 import com.sunflowers.ecommerce.inventory.entity.Inventory;
 import com.sunflowers.ecommerce.response.GeneralResponse;
-import jakarta.servlet.http.HttpServletRequest;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -24,25 +25,25 @@ public class CartController {
     private final CartService cartService;
 
     @PostMapping("/add")
-    public ResponseEntity<GeneralResponse<List<UserCartsDto>>> addItemToCart(@NonNull HttpServletRequest servletRequest, @RequestBody AddProductToCartRequest request) {
-        cartService.addItemToCart(servletRequest, request);
-        return cartService.getCart(servletRequest);
+    public ResponseEntity<GeneralResponse<List<UserCartsDto>>> addItemToCart(@NonNull @CurrentUser User user, @RequestBody AddProductToCartRequest request) {
+        cartService.addItemToCart(user, request);
+        return cartService.getCart(user);
     }
 
     @GetMapping("/contains/{inventoryId}")
-        public ResponseEntity<GeneralResponse<Boolean>> containsItem(@NonNull HttpServletRequest servletRequest, @PathVariable(name = "inventoryId") Long inventoryId) {
-        return cartService.containsItem(servletRequest, inventoryId);
+        public ResponseEntity<GeneralResponse<Boolean>> containsItem(@NonNull @CurrentUser User user, @PathVariable(name = "inventoryId") Long inventoryId) {
+        return cartService.containsItem(user, inventoryId);
     }
 
     @DeleteMapping("/remove/{inventoryId}")
-    public ResponseEntity<GeneralResponse<List<UserCartsDto>>> removeItemFromCart(@NonNull HttpServletRequest servletRequest, @PathVariable(name = "inventoryId") Long inventoryId, @RequestParam(required = false, name = "amount") Integer amount){
-        cartService.removeItemFromCart(servletRequest, inventoryId, amount);
-        return cartService.getCart(servletRequest);
+    public ResponseEntity<GeneralResponse<List<UserCartsDto>>> removeItemFromCart(@NonNull @CurrentUser User user, @PathVariable(name = "inventoryId") Long inventoryId, @RequestParam(required = false, name = "amount") Integer amount){
+        cartService.removeItemFromCart(user, inventoryId, amount);
+        return cartService.getCart(user);
     }
 
     @GetMapping("/get")
-    public ResponseEntity<GeneralResponse<List<UserCartsDto>>> getCart(@NonNull HttpServletRequest servletRequest) {
-        return cartService.getCart(servletRequest);
+    public ResponseEntity<GeneralResponse<List<UserCartsDto>>> getCart(@NonNull @CurrentUser User user) {
+        return cartService.getCart(user);
     }
 
     @ExceptionHandler(Exception.class)
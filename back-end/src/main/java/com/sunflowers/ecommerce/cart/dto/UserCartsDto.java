@@ -5,15 +5,22 @@ import com.sunflowers.ecommerce.inventory.entity.Inventory;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+/**
+ * An item of the user's cart, identified by its inventory; carts are kept in memory and items not written yet have
+ * no cart item id, so none is exposed.
+ */
 @Data
 public class UserCartsDto {
-    private long cartItemId;
     private Integer cartStock;
     private InventoryDTO inventory;
 
-    public UserCartsDto(long cartItemId, Integer cartStock, Inventory inventory) {
-        this.cartItemId = cartItemId;
+    public UserCartsDto(Integer cartStock, Inventory inventory) {
         this.cartStock = cartStock;
         this.inventory = new InventoryDTO(inventory); // Conversion de Inventory a InventoryDTO
     }
+
+    public UserCartsDto(Integer cartStock, InventoryDTO inventory) {
+        this.cartStock = cartStock;
+        this.inventory = inventory;
+    }
 }
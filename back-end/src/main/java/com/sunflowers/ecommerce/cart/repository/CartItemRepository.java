@@ -14,7 +14,7 @@ public interface CartItemRepository  extends JpaRepository<CartItem, Long> {
     boolean existsByUserAndInventory(User user, Inventory inventory);
     Optional<CartItem> findByUserAndInventory(User user, Inventory inventory);
 
-    @Query("SELECT new com.sunflowers.ecommerce.cart.dto.UserCartsDto(ci.id, ci.amount, ci.inventory) FROM CartItem ci WHERE ci.user = ?1")
+    @Query("SELECT new com.sunflowers.ecommerce.cart.dto.UserCartsDto(ci.amount, ci.inventory) FROM CartItem ci WHERE ci.user = ?1")
     List<UserCartsDto> findAllInventoriesFromUser(User user);
 
     List<CartItem> findAllByUser(User user);
@@ -1,70 +1,33 @@
 package com.sunflowers.ecommerce.cart.service;
 
 import com.sunflowers.ecommerce.auth.entity.User;
-import com.sunflowers.ecommerce.auth.service.JwtService;
-import com.sunflowers.ecommerce.auth.service.UserService;
 import com.sunflowers.ecommerce.cart.dto.UserCartsDto;
 import com.sunflowers.ecommerce.cart.entity.CartItem;
-import com.sunflowers.ecommerce.cart.repository.CartItemRepository;
 import com.sunflowers.ecommerce.cart.request.AddProductToCartRequest;
-import com.sunflowers.ecommerce.inventory.entity.Inventory;
 import com.sunflowers.ecommerce.inventory.service.InventoryService;
 import com.sunflowers.ecommerce.response.GeneralResponse;
-import jakarta.persistence.EntityNotFoundException;
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
+/**
+ * Cart operations served from the {@link CartStore}; only adding an inventory that is not in the cart yet reads
+ * the database.
+ */
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
-    private final JwtService jwtService;
-    private final UserService userService;
     private final InventoryService inventoryService;
 
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
 
-    private User getUserFromRequest(HttpServletRequest request) {
-        String token = (request.getHeader(HttpHeaders.AUTHORIZATION)).substring(7);
-        String username = jwtService.extractUsername(token);
-        return userService.getUserByEmail(username);
-    }
-
-    private boolean productIsInCart(User user, Inventory inventory) {
-        return cartItemRepository.existsByUserAndInventory(user, inventory);
-    }
-
-    public ResponseEntity<GeneralResponse<CartItem>> addItemToCart(HttpServletRequest servletRequest, AddProductToCartRequest request) {
-        User user = getUserFromRequest(servletRequest);
-        Inventory inventory = inventoryService.getProductInventory(request.getInventoryId());
-
-        if (productIsInCart(user, inventory)) {
-            CartItem cartItem = cartItemRepository.findByUserAndInventory(user, inventory)
-                    .orElseThrow(() -> new EntityNotFoundException("Error adding item"));
-            cartItem.setAmount(cartItem.getAmount() + request.getAmount());
-            cartItemRepository.save(cartItem);
-            return ResponseEntity.status(HttpStatus.OK)
-                    .body(GeneralResponse.<CartItem>builder()
-                            .statusCode(HttpStatus.OK.value())
-                            .message("product added to cart")
-                            .success(true)
-                            .data(cartItem)
-                            .build());
-        }
-
-        CartItem cartItem = CartItem.builder()
-                .user(user)
-                .inventory(inventory)
-                .amount(request.getAmount())
-                .build();
-        cartItemRepository.save(cartItem);
+    public ResponseEntity<GeneralResponse<CartItem>> addItemToCart(User user, AddProductToCartRequest request) {
+        CartItem cartItem = cartStore.add(user, request.getInventoryId(), request.getAmount(),
+                () -> inventoryService.getProductInventory(request.getInventoryId()));
 
         return  ResponseEntity.status(HttpStatus.OK)
                 .body(GeneralResponse.<CartItem>builder()
@@ -75,11 +38,8 @@ public class CartService {
                 .build());
     }
 
-    public ResponseEntity<GeneralResponse<Boolean>> containsItem(HttpServletRequest servletRequest, Long inventoryId) {
-        User user = getUserFromRequest(servletRequest);
-        Inventory inventory = inventoryService.getProductInventory(inventoryId);
-
-        boolean contains = productIsInCart(user, inventory);
+    public ResponseEntity<GeneralResponse<Boolean>> containsItem(User user, Long inventoryId) {
+        boolean contains = cartStore.contains(user, inventoryId);
         String message = "Items in cart";
 
         if (!contains) {
@@ -95,16 +55,8 @@ public class CartService {
                         .build());
     }
 
-    public ResponseEntity<GeneralResponse<Boolean>> removeItemFromCart(HttpServletRequest servletRequest, Long inventoryId, Integer amount) {
-        User user = getUserFromRequest(servletRequest);
-        Inventory inventory = inventoryService.getProductInventory(inventoryId);
-
-        CartItem cartItem = cartItemRepository.findByUserAndInventory(user, inventory)
-                .orElseThrow(() -> new EntityNotFoundException("Item not found in cart"));
-
-        if (amount != null && amount < cartItem.getAmount()) {
-            cartItem.setAmount(cartItem.getAmount() - amount);
-            cartItemRepository.save(cartItem);
+    public ResponseEntity<GeneralResponse<Boolean>> removeItemFromCart(User user, Long inventoryId, Integer amount) {
+        if (cartStore.remove(user, inventoryId, amount) > 0) {
             return ResponseEntity.status(HttpStatus.OK)
                     .body(GeneralResponse.<Boolean>builder()
                             .statusCode(HttpStatus.OK.value())
@@ -114,8 +66,6 @@ public class CartService {
                             .build());
         }
 
-        cartItemRepository.delete(cartItem);
-
         return ResponseEntity.status(HttpStatus.OK)
                 .body(GeneralResponse.<Boolean>builder()
                         .statusCode(HttpStatus.OK.value())
@@ -125,9 +75,8 @@ public class CartService {
                         .build());
     }
 
-    public ResponseEntity<GeneralResponse<List<UserCartsDto>>> getCart(HttpServletRequest servletRequest) {
-        User user = getUserFromRequest(servletRequest);
-        List<UserCartsDto> cartItems = cartItemRepository.findAllInventoriesFromUser(user);
+    public ResponseEntity<GeneralResponse<List<UserCartsDto>>> getCart(User user) {
+        List<UserCartsDto> cartItems = cartStore.get(user);
 
         return ResponseEntity.status(HttpStatus.OK)
                 .body(GeneralResponse.<List<UserCartsDto>>builder()
@@ -0,0 +1,536 @@
+package com.sunflowers.ecommerce.cart.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sunflowers.ecommerce.auth.entity.User;
+import com.sunflowers.ecommerce.cart.dto.UserCartsDto;
+import com.sunflowers.ecommerce.cart.entity.CartItem;
+import com.sunflowers.ecommerce.cart.repository.CartItemRepository;
+import com.sunflowers.ecommerce.inventory.dto.InventoryDTO;
+import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps the carts of active users in memory and writes their changes behind to cart_item.
+ * <p>
+ * Each cart is loaded once and then changed in place, atomically per user, so adding, removing and reading items
+ * needs no query. Carts and inventories are read before the per-user compute, which only merges state kept in memory.
+ * Changed amounts are recorded per user and item; repeated changes to an item collapse into its latest amount, and
+ * every {@code cart.store.flush-interval} all of them are written with one upsert and one delete. Pending amounts are
+ * kept apart from the carts, so evicting a cart never loses a change.
+ * <p>
+ * cart_item stays the source of truth: checkout calls {@link #flush} first, and pending changes are written on
+ * shutdown. A crash loses at most the changes of the last flush interval. Carts are reloaded after
+ * {@code cart.store.refresh-after} so the stock and prices they show stay recent. Each node keeps its own carts, so
+ * with several nodes a user's requests should reach the same node.
+ */
+@Slf4j
+@Component
+public class CartStore {
+
+    private static final String UPSERT = "INSERT INTO cart_item (user_id, inventory_id, amount) " +
+            "SELECT * FROM unnest(?::uuid[], ?::bigint[], ?::integer[]) " +
+            "ON CONFLICT (user_id, inventory_id) DO UPDATE SET amount = EXCLUDED.amount";
+    private static final String DELETE = "DELETE FROM cart_item c " +
+            "USING unnest(?::uuid[], ?::bigint[]) AS d(user_id, inventory_id) " +
+            "WHERE c.user_id = d.user_id AND c.inventory_id = d.inventory_id";
+    private static final int USER_LOCKS = 64;
+
+    private final Cache<UUID, Cart> carts;
+    /**
+     * The amounts not written yet, by user and inventory id; 0 stands for a removed item. The inner maps are only
+     * read or changed inside a compute on the outer map.
+     */
+    private final ConcurrentHashMap<UUID, Map<Long, Integer>> pending = new ConcurrentHashMap<>();
+    /**
+     * Locks held while a user's pending amounts are read and written, so an older amount is never written after a
+     * newer one; users share them by hash. Each is only taken once the writing transaction holds its connection, so
+     * a thread waiting for one never keeps the holder from getting a connection.
+     */
+    private final ReentrantLock[] userLocks = new ReentrantLock[USER_LOCKS];
+    /**
+     * Keeps the scheduled flush and the flush on shutdown from running at the same time.
+     */
+    private final Object flushPendingLock = new Object();
+
+    private final CartItemRepository cartItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long refreshAfter;
+    private final int batchSize;
+
+    public CartStore(CartItemRepository cartItemRepository,
+                     JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry,
+                     @Value("${cart.store.max-size:10000}") long maxSize,
+                     @Value("${cart.store.idle-ttl:PT30M}") Duration idleTtl,
+                     @Value("${cart.store.refresh-after:PT1M}") Duration refreshAfter,
+                     @Value("${cart.store.batch-size:1000}") int batchSize) {
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleTtl)
+                .recordStats()
+                .build();
+        this.cartItemRepository = cartItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.refreshAfter = refreshAfter.toNanos();
+        this.batchSize = batchSize;
+        for (int i = 0; i < USER_LOCKS; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+
+        CaffeineCacheMetrics.monitor(meterRegistry, carts, "cart.store");
+        meterRegistry.gaugeMapSize("cart.pending.users", List.of(), pending);
+    }
+
+    /**
+     * Returns the items in the user's cart, loading the cart if it is not in memory or is due for a refresh.
+     *
+     * @param user the owner of the cart
+     * @return the items in the cart
+     */
+    public List<UserCartsDto> get(User user) {
+        Cart cart = carts.getIfPresent(user.getId());
+        if (cart == null || isStale(cart)) {
+            cart = update(user, UnaryOperator.identity());
+        }
+        return cart.items().values().stream()
+                .map(item -> new UserCartsDto(item.amount(), item.inventory()))
+                .toList();
+    }
+
+    /**
+     * @param user        the owner of the cart
+     * @param inventoryId the inventory id
+     * @return true if the cart holds the inventory
+     */
+    public boolean contains(User user, long inventoryId) {
+        return get(user).stream().anyMatch(item -> item.getInventory().getId() == inventoryId);
+    }
+
+    /**
+     * Adds an amount of an inventory to the user's cart.
+     *
+     * @param user        the owner of the cart
+     * @param inventoryId the inventory id
+     * @param amount      the amount to add
+     * @param inventory   the function loading the inventory, called only if the cart does not hold it yet
+     * @return the item with its new amount, without an id, since the item may not be written yet
+     */
+    public CartItem add(User user, long inventoryId, int amount, Supplier<Inventory> inventory) {
+        InventoryDTO added = contains(user, inventoryId) ? null : snapshot(inventory.get());
+        Item item = change(user, inventoryId, current -> {
+            if (current != null) {
+                return current.withAmount(current.amount() + amount);
+            }
+            return added == null ? null : new Item(added, amount);
+        });
+        // Without an item the cart lost the inventory since it was checked, so it is loaded and added again
+        return item == null ? add(user, inventoryId, amount, inventory) : cartItem(user, item);
+    }
+
+    /**
+     * Removes an amount of an inventory from the user's cart, or the whole item if no amount is given or it is not
+     * less than the amount in the cart.
+     *
+     * @param user        the owner of the cart
+     * @param inventoryId the inventory id
+     * @param amount      the amount to remove, or null to remove the item
+     * @return the amount left in the cart, 0 if the item was removed
+     * @throws EntityNotFoundException if the cart does not hold the inventory
+     */
+    public int remove(User user, long inventoryId, Integer amount) {
+        Item item = change(user, inventoryId, current -> {
+            if (current == null) {
+                throw new EntityNotFoundException("Item not found in cart");
+            }
+            return amount != null && amount < current.amount() ? current.withAmount(current.amount() - amount) : null;
+        });
+        return item == null ? 0 : item.amount();
+    }
+
+    /**
+     * Writes the pending changes of one user in a transaction of their own, so a following read of cart_item sees
+     * the cart as the user last left it. Must be called outside a transaction, since it needs a connection of its
+     * own; it waits only for a flush of the same user, or of a user sharing its lock, that already holds one.
+     *
+     * @param userId the user id
+     */
+    public void flush(UUID userId) {
+        Map<UUID, Map<Long, Integer>> batch = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            ReentrantLock lock = userLock(userId);
+            lock.lock();
+            try {
+                Map<Long, Integer> items = pendingOf(userId);
+                if (!items.isEmpty()) {
+                    batch.put(userId, items);
+                    write(status, batch);
+                }
+            } finally {
+                // The written rows stay locked until commit, so a later flush of the user still writes after this one
+                lock.unlock();
+            }
+        });
+        settle(batch);
+    }
+
+    /**
+     * Removes the given inventories from the user's cart once the current transaction commits, or immediately
+     * without one. The items are dropped from the cart in memory and marked removed in the same compute, so neither
+     * a cart read before nor an amount changed before can bring them back; cart_item is updated by the next flush.
+     *
+     * @param userId       the user id
+     * @param inventoryIds the inventory ids to remove
+     */
+    public void removeAll(UUID userId, Set<Long> inventoryIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            removeNow(userId, inventoryIds);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                removeNow(userId, inventoryIds);
+            }
+        });
+    }
+
+    /**
+     * Writes the pending changes of all users, {@code cart.store.batch-size} items per transaction. Changes that
+     * cannot be written stay pending and are tried again on the next run, except those the database rejects, which
+     * are logged and dropped.
+     */
+    @Scheduled(fixedDelayString = "${cart.store.flush-interval:PT2S}")
+    public void flushPending() {
+        synchronized (flushPendingLock) {
+            Iterator<UUID> users = new ArrayList<>(pending.keySet()).iterator();
+            while (users.hasNext()) {
+                flushBatch(users);
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        flushPending();
+        if (!pending.isEmpty()) {
+            log.error("Could not write the cart changes of {} users on shutdown", pending.size());
+        }
+    }
+
+    /**
+     * Applies a change to one item of the user's cart and records its new amount as pending.
+     *
+     * @return the changed item, or null if the cart does not hold it
+     */
+    private Item change(User user, long inventoryId, UnaryOperator<Item> update) {
+        Item[] changed = new Item[1];
+        update(user, cart -> {
+            Item current = cart.items().get(inventoryId);
+            Item item = update.apply(current);
+            changed[0] = item;
+            if (item == current) {
+                return cart;
+            }
+
+            Map<Long, Item> items = new LinkedHashMap<>(cart.items());
+            if (item == null) {
+                items.remove(inventoryId);
+            } else {
+                items.put(inventoryId, item);
+            }
+            markPending(user.getId(), inventoryId, item == null ? 0 : item.amount());
+            return new Cart(Collections.unmodifiableMap(items), cart.loadedAt());
+        });
+        return changed[0];
+    }
+
+    /**
+     * Changes the user's cart atomically. A cart that is not in memory or is due for a refresh is read before the
+     * compute, and inside it only the changes made since are merged; if one of them adds an item the read cart does
+     * not hold, the cart is read again.
+     */
+    private Cart update(User user, UnaryOperator<Cart> change) {
+        Cart cached = carts.getIfPresent(user.getId());
+        Cart loaded = cached == null || isStale(cached) ? load(user) : null;
+        boolean[] reload = new boolean[1];
+        Cart updated = carts.asMap().compute(user.getId(), (id, current) -> {
+            if (current != null && !isStale(current)) {
+                return change.apply(current);
+            }
+            Cart merged = loaded == null ? null : merge(loaded, pendingOf(id));
+            if (merged == null) {
+                reload[0] = true;
+                return current;
+            }
+            return change.apply(merged);
+        });
+        return reload[0] ? update(user, change) : updated;
+    }
+
+    /**
+     * Reads the cart from cart_item and applies the changes not written yet. Pending changes are read first, so a
+     * change written in between is found in the table.
+     */
+    private Cart load(User user) {
+        Map<Long, Integer> unwritten = pendingOf(user.getId());
+        Map<Long, Item> items = new LinkedHashMap<>();
+        for (UserCartsDto row : cartItemRepository.findAllInventoriesFromUser(user)) {
+            items.put(row.getInventory().getId(), new Item(snapshot(row.getInventory()), row.getCartStock()));
+        }
+
+        Cart cart = merge(new Cart(items, System.nanoTime()), unwritten);
+        if (cart == null) {
+            // An item added since the last flush; write it so the inventory is read with the rest of the cart
+            flush(user.getId());
+            return load(user);
+        }
+        return cart;
+    }
+
+    /**
+     * Applies pending amounts to a cart.
+     *
+     * @return the changed cart, or null if an amount is pending for an item the cart does not hold
+     */
+    private static Cart merge(Cart cart, Map<Long, Integer> unwritten) {
+        Map<Long, Item> items = new LinkedHashMap<>(cart.items());
+        for (Map.Entry<Long, Integer> change : unwritten.entrySet()) {
+            Item item = items.get(change.getKey());
+            if (change.getValue() == 0) {
+                items.remove(change.getKey());
+            } else if (item != null) {
+                items.put(change.getKey(), item.withAmount(change.getValue()));
+            } else {
+                return null;
+            }
+        }
+        return new Cart(Collections.unmodifiableMap(items), cart.loadedAt());
+    }
+
+    private void removeNow(UUID userId, Set<Long> inventoryIds) {
+        carts.asMap().compute(userId, (id, current) -> {
+            inventoryIds.forEach(inventoryId -> markPending(id, inventoryId, 0));
+            if (current == null) {
+                return null;
+            }
+            Map<Long, Item> items = new LinkedHashMap<>(current.items());
+            items.keySet().removeAll(inventoryIds);
+            return new Cart(Collections.unmodifiableMap(items), current.loadedAt());
+        });
+    }
+
+    private boolean isStale(Cart cart) {
+        return System.nanoTime() - cart.loadedAt() > refreshAfter;
+    }
+
+    private void markPending(UUID userId, long inventoryId, int amount) {
+        pending.compute(userId, (id, items) -> {
+            Map<Long, Integer> changed = items == null ? new HashMap<>() : items;
+            changed.put(inventoryId, amount);
+            return changed;
+        });
+    }
+
+    private Map<Long, Integer> pendingOf(UUID userId) {
+        Map<Long, Integer> copy = new HashMap<>();
+        pending.computeIfPresent(userId, (id, items) -> {
+            copy.putAll(items);
+            return items;
+        });
+        return copy;
+    }
+
+    /**
+     * Writes the pending changes of the next users, up to {@code cart.store.batch-size} items, in one transaction.
+     * Users being flushed by their own checkout are skipped and left for the next run.
+     */
+    private void flushBatch(Iterator<UUID> users) {
+        Map<UUID, Map<Long, Integer>> batch = new HashMap<>();
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int size = 0;
+                while (size < batchSize && users.hasNext()) {
+                    UUID userId = users.next();
+                    ReentrantLock lock = userLock(userId);
+                    if (!lock.tryLock()) {
+                        continue;
+                    }
+                    held.add(lock);
+                    Map<Long, Integer> items = pendingOf(userId);
+                    if (!items.isEmpty()) {
+                        batch.put(userId, items);
+                        size += items.size();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    write(status, batch);
+                }
+            });
+            settle(batch);
+        } catch (RuntimeException e) {
+            log.warn("Could not write the cart changes of {} users, retrying on the next flush", batch.size(), e);
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    private ReentrantLock userLock(UUID userId) {
+        return userLocks[Math.floorMod(userId.hashCode(), USER_LOCKS)];
+    }
+
+    /**
+     * Writes a batch behind a savepoint, and if the database rejects it, writes each half behind one of its own
+     * until the rejected changes are isolated; those are logged and left out, so they cannot hold back the rest of
+     * the batch on every flush, and are dropped with the written ones once the transaction commits.
+     */
+    private void write(TransactionStatus status, Map<UUID, Map<Long, Integer>> batch) {
+        Object savepoint = status.createSavepoint();
+        try {
+            writeRows(batch);
+            status.releaseSavepoint(savepoint);
+        } catch (DataIntegrityViolationException e) {
+            status.rollbackToSavepoint(savepoint);
+            List<Map<UUID, Map<Long, Integer>>> halves = halves(batch);
+            if (halves.get(0).isEmpty()) {
+                log.error("Dropping the cart change {} that cannot be written", batch, e);
+                return;
+            }
+            halves.forEach(half -> write(status, half));
+        }
+    }
+
+    /**
+     * Splits a batch into two with half of its changes each; the first is empty if the batch holds a single change.
+     */
+    private static List<Map<UUID, Map<Long, Integer>>> halves(Map<UUID, Map<Long, Integer>> batch) {
+        int half = batch.values().stream().mapToInt(Map::size).sum() / 2;
+        List<Map<UUID, Map<Long, Integer>>> halves = List.of(new HashMap<>(), new HashMap<>());
+        int[] index = new int[1];
+        batch.forEach((userId, items) -> items.forEach((inventoryId, amount) -> halves.get(index[0]++ < half ? 0 : 1)
+                .computeIfAbsent(userId, id -> new HashMap<>())
+                .put(inventoryId, amount)));
+        return halves;
+    }
+
+    /**
+     * Writes the amounts of a batch with one upsert and one delete.
+     */
+    private void writeRows(Map<UUID, Map<Long, Integer>> batch) {
+        List<UUID> upsertUsers = new ArrayList<>();
+        List<Long> upsertItems = new ArrayList<>();
+        List<Integer> upsertAmounts = new ArrayList<>();
+        List<UUID> deleteUsers = new ArrayList<>();
+        List<Long> deleteItems = new ArrayList<>();
+        batch.forEach((userId, items) -> items.forEach((inventoryId, amount) -> {
+            if (amount == 0) {
+                deleteUsers.add(userId);
+                deleteItems.add(inventoryId);
+            } else {
+                upsertUsers.add(userId);
+                upsertItems.add(inventoryId);
+                upsertAmounts.add(amount);
+            }
+        }));
+
+        if (!upsertUsers.isEmpty()) {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(UPSERT);
+                ps.setArray(1, connection.createArrayOf("uuid", upsertUsers.toArray()));
+                ps.setArray(2, connection.createArrayOf("bigint", upsertItems.toArray()));
+                ps.setArray(3, connection.createArrayOf("integer", upsertAmounts.toArray()));
+                return ps;
+            });
+        }
+        if (!deleteUsers.isEmpty()) {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(DELETE);
+                ps.setArray(1, connection.createArrayOf("uuid", deleteUsers.toArray()));
+                ps.setArray(2, connection.createArrayOf("bigint", deleteItems.toArray()));
+                return ps;
+            });
+        }
+    }
+
+    /**
+     * Drops the amounts of a committed batch from the pending ones, except those changed since the batch was taken;
+     * amounts changed during the write stay pending for the next flush.
+     */
+    private void settle(Map<UUID, Map<Long, Integer>> batch) {
+        batch.forEach((userId, done) -> pending.computeIfPresent(userId, (id, items) -> {
+            done.forEach(items::remove);
+            return items.isEmpty() ? null : items;
+        }));
+    }
+
+    /**
+     * Copies what the cart shows of an inventory, so it can be kept after the persistence context is closed.
+     */
+    private static InventoryDTO snapshot(Inventory inventory) {
+        return snapshot(new InventoryDTO(inventory));
+    }
+
+    private static InventoryDTO snapshot(InventoryDTO inventory) {
+        if (inventory.getProduct().getProductImages() != null) {
+            inventory.getProduct().setProductImages(new ArrayList<>(inventory.getProduct().getProductImages()));
+        }
+        return inventory;
+    }
+
+    private static CartItem cartItem(User user, Item item) {
+        InventoryDTO inventory = item.inventory();
+        return CartItem.builder()
+                .user(user)
+                .inventory(Inventory.builder()
+                        .id(inventory.getId())
+                        .color(inventory.getColor())
+                        .size(inventory.getSize())
+                        .stock(inventory.getStock())
+                        .build())
+                .amount(item.amount())
+                .build();
+    }
+
+    private record Cart(Map<Long, Item> items, long loadedAt) {
+    }
+
+    /**
+     * @param inventory the inventory as shown in the cart
+     * @param amount    the amount in the cart
+     */
+    private record Item(InventoryDTO inventory, int amount) {
+
+        Item withAmount(int amount) {
+            return new Item(inventory, amount);
+        }
+    }
+}
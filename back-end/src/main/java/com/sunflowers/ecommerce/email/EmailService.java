@@ -1,35 +1,100 @@
 package com.sunflowers.ecommerce.email;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Service class for handling email-related operations.
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final OutboxMailRepository outboxMailRepository;
     private final Environment env;
 
+    @Value("${mail.outbox.lease:PT2M}")
+    private Duration outboxLease;
+
+    @Value("${mail.outbox.max-attempts:10}")
+    private int outboxMaxAttempts;
+
+    /**
+     * Records an email in the outbox as part of the caller's transaction, so it is only sent if the transaction
+     * commits and is not lost if the application stops before delivery.
+     *
+     * @param mail      the {@link MailBody} object containing the email details such as subject, text, and recipient.
+     * @param dedupeKey the key identifying the event that triggered the email; an email already queued with the
+     *                  same key is not queued again.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void queueEmail(MailBody mail, String dedupeKey) {
+        if (outboxMailRepository.existsByDedupeKey(dedupeKey)) {
+            return;
+        }
+
+        outboxMailRepository.save(OutboxMail.builder()
+                .dedupeKey(dedupeKey)
+                .recipient(mail.to())
+                .subject(mail.subject())
+                .text(mail.text())
+                .createdAt(new Timestamp(System.currentTimeMillis()))
+                .build());
+    }
+
+    /**
+     * Claims a batch of pending outbox emails by leasing them for {@code mail.outbox.lease}.
+     * Emails already claimed {@code mail.outbox.max-attempts} times without being sent are marked as failed
+     * instead, so a message that can never be delivered is not retried forever.
+     *
+     * @param limit the maximum number of emails to claim
+     * @return the claimed emails
+     */
+    @Transactional
+    public List<OutboxMail> claimOutboxBatch(int limit) {
+        long now = System.currentTimeMillis();
+        List<OutboxMail> claimed = new ArrayList<>();
+        Timestamp claimedUntil = new Timestamp(now + outboxLease.toMillis());
+        for (OutboxMail mail : outboxMailRepository.findClaimable(new Timestamp(now), limit)) {
+            if (mail.getAttempts() >= outboxMaxAttempts) {
+                mail.setFailedAt(new Timestamp(now));
+                log.error("Giving up on outbox mail {} to {} after {} attempts", mail.getDedupeKey(), mail.getRecipient(), mail.getAttempts());
+                continue;
+            }
+            mail.setClaimedUntil(claimedUntil);
+            mail.setAttempts(mail.getAttempts() + 1);
+            claimed.add(mail);
+        }
+        return claimed;
+    }
+
     /**
-     * Sends an email in a separate thread to avoid blocking the main application flow.
+     * Marks an outbox email as delivered so it is not claimed again.
      *
-     * @param mail the {@link MailBody} object containing the email details such as subject, text, and recipient.
+     * @param mail the delivered email
      */
-    public void sendEmail(MailBody mail) {
-        new Thread(() -> {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(env.getProperty("MAIL_USERNAME"));
-            message.setSubject(mail.subject());
-            message.setText(mail.text());
-            message.setTo(mail.to());
-
-            mailSender.send(message);
-        }).start();
+    public void markOutboxSent(OutboxMail mail) {
+        outboxMailRepository.markSent(mail.getId(), new Timestamp(System.currentTimeMillis()));
+    }
+
+    SimpleMailMessage toMessage(String to, String subject, String text) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(env.getProperty("MAIL_USERNAME"));
+        message.setSubject(subject);
+        message.setText(text);
+        message.setTo(to);
+        return message;
     }
 }
@@ -0,0 +1,247 @@
+package com.sunflowers.ecommerce.email;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Outbound mail pipeline with a bounded queue and a fixed pool of workers.
+ * Each worker drains up to {@code mail.dispatcher.batch-size} messages and sends them through a single SMTP
+ * connection, retrying the failed ones with exponential backoff.
+ */
+@Slf4j
+@Component
+public class MailDispatcher {
+
+    private final JavaMailSender mailSender;
+    private final BlockingQueue<QueuedMail> queue;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration offerTimeout;
+
+    private final Timer deliveryLatency;
+    private final Timer batchLatency;
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter dropped;
+
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public MailDispatcher(JavaMailSender mailSender,
+                          MeterRegistry meterRegistry,
+                          @Value("${mail.dispatcher.queue-capacity:1000}") int queueCapacity,
+                          @Value("${mail.dispatcher.workers:2}") int workers,
+                          @Value("${mail.dispatcher.batch-size:50}") int batchSize,
+                          @Value("${mail.dispatcher.max-attempts:3}") int maxAttempts,
+                          @Value("${mail.dispatcher.initial-backoff:PT1S}") Duration initialBackoff,
+                          @Value("${mail.dispatcher.offer-timeout:PT1S}") Duration offerTimeout) {
+        this.mailSender = mailSender;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.offerTimeout = offerTimeout;
+
+        meterRegistry.gaugeCollectionSize("mail.queue.depth", List.of(), queue);
+        this.deliveryLatency = meterRegistry.timer("mail.delivery.latency");
+        this.batchLatency = meterRegistry.timer("mail.batch.latency");
+        this.sent = meterRegistry.counter("mail.sent");
+        this.failed = meterRegistry.counter("mail.failed");
+        this.dropped = meterRegistry.counter("mail.dropped");
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "mail-dispatcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    /**
+     * Stops the workers and makes a last attempt to send whatever is still queued.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        List<QueuedMail> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            sendBatch(remaining);
+        }
+    }
+
+    /**
+     * Queues a message for delivery.
+     * When the queue stays full for longer than {@code mail.dispatcher.offer-timeout} the message is dropped,
+     * so a mail backlog never blocks the request path indefinitely.
+     *
+     * @param message the message to send
+     * @return true if the message was queued, false if it was dropped
+     */
+    public boolean enqueue(SimpleMailMessage message) {
+        return enqueue(message, null);
+    }
+
+    /**
+     * Queues a message for delivery and reports the outcome to {@code onComplete}: true once the message was
+     * accepted by the SMTP server, false when it was dropped or every attempt failed.
+     *
+     * @param message    the message to send
+     * @param onComplete the callback invoked with the delivery outcome, may be null
+     * @return true if the message was queued, false if it was dropped
+     */
+    public boolean enqueue(SimpleMailMessage message, Consumer<Boolean> onComplete) {
+        try {
+            if (queue.offer(new QueuedMail(message, System.nanoTime(), 1, onComplete), offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+        log.warn("Mail queue full, dropping message to {}", Arrays.toString(message.getTo()));
+        if (onComplete != null) {
+            onComplete.accept(false);
+        }
+        return false;
+    }
+
+    private void work() {
+        List<QueuedMail> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                sendWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendWithRetry(List<QueuedMail> batch) throws InterruptedException {
+        List<QueuedMail> pending = batch;
+        Duration backoff = initialBackoff;
+        while (!pending.isEmpty()) {
+            List<QueuedMail> retry = new ArrayList<>();
+            for (QueuedMail mail : sendBatch(pending)) {
+                if (mail.attempt() < maxAttempts) {
+                    retry.add(mail.nextAttempt());
+                } else {
+                    failed.increment();
+                    log.error("Giving up sending mail to {} after {} attempts", Arrays.toString(mail.message().getTo()), mail.attempt());
+                    mail.complete(false);
+                }
+            }
+            if (!retry.isEmpty()) {
+                try {
+                    Thread.sleep(backoff.toMillis());
+                } catch (InterruptedException e) {
+                    retry.forEach(queue::offer);
+                    throw e;
+                }
+                backoff = backoff.multipliedBy(2);
+            }
+            pending = retry;
+        }
+    }
+
+    /**
+     * Sends the batch over a single connection.
+     *
+     * @param batch the messages to send
+     * @return the messages that could not be sent
+     */
+    private List<QueuedMail> sendBatch(List<QueuedMail> batch) {
+        SimpleMailMessage[] messages = batch.stream()
+                .map(QueuedMail::message)
+                .toArray(SimpleMailMessage[]::new);
+        long start = System.nanoTime();
+        Set<QueuedMail> failedMails = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            for (QueuedMail mail : batch) {
+                if (e.getFailedMessages().containsKey(mail.message())) {
+                    failedMails.add(mail);
+                }
+            }
+            if (failedMails.isEmpty()) {
+                failedMails.addAll(batch);
+            }
+            log.warn("Failed to send {} of {} mails", failedMails.size(), batch.size(), e);
+        } catch (MailException e) {
+            failedMails.addAll(batch);
+            log.warn("Failed to send batch of {} mails", batch.size(), e);
+        }
+        long end = System.nanoTime();
+        batchLatency.record(end - start, TimeUnit.NANOSECONDS);
+        for (QueuedMail mail : batch) {
+            if (!failedMails.contains(mail)) {
+                sent.increment();
+                deliveryLatency.record(end - mail.enqueuedAt(), TimeUnit.NANOSECONDS);
+                mail.complete(true);
+            }
+        }
+        return new ArrayList<>(failedMails);
+    }
+
+    private record QueuedMail(SimpleMailMessage message, long enqueuedAt, int attempt, Consumer<Boolean> onComplete) {
+
+        QueuedMail nextAttempt() {
+            return new QueuedMail(message, enqueuedAt, attempt + 1, onComplete);
+        }
+
+        void complete(boolean delivered) {
+            if (onComplete == null) {
+                return;
+            }
+            try {
+                onComplete.accept(delivered);
+            } catch (RuntimeException e) {
+                log.warn("Mail completion callback failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.sunflowers.ecommerce.email;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the mail outbox in batches and hands the emails to the {@link MailDispatcher}.
+ * Rows are only marked as sent once the SMTP server accepted them, so delivery is at-least-once:
+ * an email whose lease expires before it is confirmed (e.g. after a crash) is sent again.
+ */
+@Component
+@RequiredArgsConstructor
+public class MailOutboxRelay {
+
+    private final EmailService emailService;
+    private final MailDispatcher mailDispatcher;
+
+    @Value("${mail.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval:PT5S}")
+    public void relay() {
+        for (OutboxMail mail : emailService.claimOutboxBatch(batchSize)) {
+            mailDispatcher.enqueue(emailService.toMessage(mail.getRecipient(), mail.getSubject(), mail.getText()),
+                    sent -> {
+                        if (sent) {
+                            emailService.markOutboxSent(mail);
+                        }
+                    });
+        }
+    }
+}
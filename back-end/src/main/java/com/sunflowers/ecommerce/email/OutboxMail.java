@@ -0,0 +1,65 @@
+package com.sunflowers.ecommerce.email;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Entity class representing an email waiting in the transactional outbox.
+ * Rows are written in the same transaction as the change that triggers the email and delivered by the {@link MailOutboxRelay}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "mail_outbox", indexes = {
+        @Index(name = "idx_mail_outbox_pending", columnList = "sent_at, created_at")
+})
+public class OutboxMail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    /**
+     * Identifies the event that produced the email, so the same event never queues it twice.
+     */
+    @Column(name = "dedupe_key", nullable = false, unique = true)
+    private String dedupeKey;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    @Column(name = "text", nullable = false, length = 4000)
+    private String text;
+
+    @Column(name = "created_at", nullable = false)
+    private Timestamp createdAt;
+
+    /**
+     * The relay does not pick the row again until this lease expires, unless it is marked as sent.
+     */
+    @Column(name = "claimed_until")
+    private Timestamp claimedUntil;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "sent_at")
+    private Timestamp sentAt;
+
+    /**
+     * Set once the email failed {@code mail.outbox.max-attempts} times; the relay no longer picks it.
+     */
+    @Column(name = "failed_at")
+    private Timestamp failedAt;
+}
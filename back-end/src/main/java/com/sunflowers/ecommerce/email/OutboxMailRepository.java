@@ -0,0 +1,39 @@
+package com.sunflowers.ecommerce.email;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository interface for OutboxMail entities.
+ */
+@Repository
+public interface OutboxMailRepository extends CrudRepository<OutboxMail, UUID> {
+
+    boolean existsByDedupeKey(String dedupeKey);
+
+    /**
+     * Locks the oldest unsent emails that have not failed and whose lease has expired.
+     * Rows locked by another node are skipped, so several relays can drain the outbox concurrently.
+     *
+     * @param now   the current time
+     * @param limit the maximum number of emails to return
+     * @return the locked emails
+     */
+    @Query(value = "SELECT * FROM mail_outbox WHERE sent_at IS NULL AND failed_at IS NULL " +
+            "AND (claimed_until IS NULL OR claimed_until < :now) " +
+            "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMail> findClaimable(@Param("now") Timestamp now, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMail m SET m.sentAt = :sentAt WHERE m.id = :id")
+    void markSent(@Param("id") UUID id, @Param("sentAt") Timestamp sentAt);
+}
@@ -0,0 +1,27 @@
+package com.sunflowers.ecommerce.inventory.config;
+
+import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the sequence behind inventory versions and makes it and the writing transaction the defaults of the
+ * version columns, which cannot be declared through JPA annotations. Rows written before versions existed are given one.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryVersionInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS inventory_version_seq");
+        jdbcTemplate.execute("ALTER TABLE inventory ALTER COLUMN version SET DEFAULT nextval('inventory_version_seq')");
+        jdbcTemplate.execute("ALTER TABLE inventory ALTER COLUMN version_xid SET DEFAULT " + Inventory.WRITER_XID);
+        jdbcTemplate.update("UPDATE inventory SET version = nextval('inventory_version_seq') WHERE version = 0");
+    }
+}
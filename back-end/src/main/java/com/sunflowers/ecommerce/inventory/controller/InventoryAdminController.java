@@ -4,7 +4,11 @@ import com.sunflowers.ecommerce.inventory.entity.Color;
 import com.sunflowers.ecommerce.inventory.entity.Inventory;
 import com.sunflowers.ecommerce.inventory.request.CreateColorRequest;
 import com.sunflowers.ecommerce.inventory.request.CreateInventoryRequest;
+import com.sunflowers.ecommerce.inventory.request.StockSyncRequest;
+import com.sunflowers.ecommerce.inventory.response.StockChangesResponse;
+import com.sunflowers.ecommerce.inventory.response.StockSyncResponse;
 import com.sunflowers.ecommerce.inventory.service.InventoryService;
+import com.sunflowers.ecommerce.inventory.service.StockSyncService;
 import com.sunflowers.ecommerce.response.GeneralResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -20,6 +24,9 @@ public class InventoryAdminController {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private StockSyncService stockSyncService;
+
     @PostMapping("/")
     public ResponseEntity<GeneralResponse<Iterable<Inventory>>> addInventories(@RequestBody Iterable<CreateInventoryRequest> inventoryRequests) {
         return ResponseEntity.ok(
@@ -42,8 +49,38 @@ public class InventoryAdminController {
                         .build());
     }
 
+    /**
+     * Writes the stocks sent by the warehouse feed for the inventories still at the sent versions.
+     */
+    @PostMapping("/sync")
+    public ResponseEntity<GeneralResponse<StockSyncResponse>> syncStock(@RequestBody Iterable<StockSyncRequest> requests) {
+        StockSyncResponse response = stockSyncService.sync(requests);
+        return ResponseEntity.ok(
+                GeneralResponse.<StockSyncResponse>builder()
+                        .statusCode(HttpStatus.OK.value())
+                        .message(response.getConflicts().isEmpty() ? "Stock synced successfully" : "Stock synced with conflicts")
+                        .success(true)
+                        .data(response)
+                        .build());
+    }
+
+    /**
+     * Serves the stock changes since the position returned by the previous call.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<GeneralResponse<StockChangesResponse>> getStockChanges(@RequestParam(defaultValue = "0") long since,
+                                                                                 @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(
+                GeneralResponse.<StockChangesResponse>builder()
+                        .statusCode(HttpStatus.OK.value())
+                        .message("Stock changes retrieved successfully")
+                        .success(true)
+                        .data(stockSyncService.changesSince(since, limit))
+                        .build());
+    }
+
     @ExceptionHandler({NoSuchElementException.class, IllegalArgumentException.class})
-    public ResponseEntity<GeneralResponse<Void>> handleNoSuchElementException(NoSuchElementException e) {
+    public ResponseEntity<GeneralResponse<Void>> handleNoSuchElementException(RuntimeException e) {
         return ResponseEntity.badRequest()
                 .body(GeneralResponse.<Void>builder()
                         .statusCode(HttpStatus.BAD_REQUEST.value())
@@ -2,11 +2,13 @@ package com.sunflowers.ecommerce.inventory.controller;
 
 import com.sunflowers.ecommerce.inventory.response.UniqueColorsAndSizesResponse;
 import com.sunflowers.ecommerce.inventory.service.InventoryService;
+import com.sunflowers.ecommerce.response.CachedResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/v1/product/inventory")
@@ -15,12 +17,16 @@ public class InventoryController {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private CachedResponses cachedResponses;
+
     @GetMapping("/unique")
-    public ResponseEntity<UniqueColorsAndSizesResponse> getUniqueColorsAndSizes() {
-        return ResponseEntity.ok(
-                UniqueColorsAndSizesResponse.builder()
-                        .sizes(inventoryService.getUniqueSizes())
-                        .colors(inventoryService.getUniqueColors())
-                        .build());
+    public ResponseEntity<UniqueColorsAndSizesResponse> getUniqueColorsAndSizes(WebRequest request) {
+        return cachedResponses.respond(request, CachedResponses.Resource.INVENTORY_VALUES, null,
+                () -> ResponseEntity.ok(
+                        UniqueColorsAndSizesResponse.builder()
+                                .sizes(inventoryService.getUniqueSizes())
+                                .colors(inventoryService.getUniqueColors())
+                                .build()));
     }
 }
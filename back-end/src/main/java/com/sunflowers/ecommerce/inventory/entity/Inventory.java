@@ -9,6 +9,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Data
 @Builder
@@ -17,12 +18,25 @@ import lombok.NoArgsConstructor;
 @Entity
 @Table(name = "inventory", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"product_id", "color_name", "size"})
+}, indexes = {
+        @Index(name = "idx_inventory_version_xid", columnList = "version_xid")
 })
 @JsonIgnoreProperties({"product"})
 public class Inventory {
 
+    /**
+     * The number of ids allocated by each call to inventory_seq; each value v of the sequence reserves ids v-49 to v.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * SQL expression of the id of the current transaction, written to version_xid together with every new version.
+     */
+    public static final String WRITER_XID = "pg_current_xact_id()::text::bigint";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_seq")
+    @SequenceGenerator(name = "inventory_seq", sequenceName = "inventory_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne()
@@ -40,4 +54,21 @@ public class Inventory {
     @Min(value = 0, message = "Stock must be greater than or equal to 0")
     private Integer stock;
 
+    /**
+     * Taken from inventory_version_seq by the database whenever the row is inserted or its stock, color or size
+     * changes, so versions grow across all inventories and order their changes. Never written through JPA.
+     */
+    @Column(name = "version", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long version;
+
+    /**
+     * The id of the transaction that took the current version, or 0 for rows versioned before it was recorded.
+     * The stock changes feed is ordered by it, so a change is only served once every older transaction has ended.
+     */
+    @JsonIgnore
+    @Column(name = "version_xid", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long versionXid;
+
 }
\ No newline at end of file
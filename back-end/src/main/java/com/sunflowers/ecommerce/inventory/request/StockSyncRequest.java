@@ -0,0 +1,18 @@
+package com.sunflowers.ecommerce.inventory.request;
+
+import lombok.*;
+
+@Data
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSyncRequest {
+    private Long inventoryId;
+    private Integer stock;
+    /**
+     * The version of the inventory the new stock was computed from; the stock is only written if it is still current.
+     */
+    private Long version;
+}
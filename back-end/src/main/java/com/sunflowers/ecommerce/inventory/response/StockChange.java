@@ -0,0 +1,12 @@
+package com.sunflowers.ecommerce.inventory.response;
+
+/**
+ * The stock of an inventory at a version.
+ *
+ * @param inventoryId the inventory id
+ * @param productId   the id of the product owning the inventory
+ * @param stock       the stock
+ * @param version     the version at which the inventory has this stock
+ */
+public record StockChange(long inventoryId, int productId, int stock, long version) {
+}
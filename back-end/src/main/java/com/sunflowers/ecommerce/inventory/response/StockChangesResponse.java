@@ -0,0 +1,28 @@
+package com.sunflowers.ecommerce.inventory.response;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Data
+@Builder
+@Getter
+@Setter
+public class StockChangesResponse {
+    /**
+     * The inventories changed since the requested position, in the order of the transactions that changed them,
+     * each with its latest stock and version.
+     */
+    List<StockChange> changes;
+    /**
+     * The position to ask for the next changes from.
+     */
+    long next;
+    /**
+     * True if more changes were left out because of the limit.
+     */
+    boolean hasMore;
+}
@@ -0,0 +1,36 @@
+package com.sunflowers.ecommerce.inventory.response;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Data
+@Builder
+@Getter
+@Setter
+public class StockSyncResponse {
+    /**
+     * The inventories whose stock was written, with their new versions.
+     */
+    List<StockChange> applied;
+    /**
+     * The number of inventories that were current and already had the sent stock; they keep their versions.
+     */
+    int unchanged;
+    /**
+     * The inventories that changed since the sent version, or do not exist; their stock was not written.
+     */
+    List<Conflict> conflicts;
+
+    /**
+     * @param inventoryId     the inventory id
+     * @param expectedVersion the version sent by the feed
+     * @param currentVersion  the current version, or null if the inventory does not exist
+     * @param currentStock    the current stock, or null if the inventory does not exist
+     */
+    public record Conflict(long inventoryId, long expectedVersion, Long currentVersion, Integer currentStock) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.sunflowers.ecommerce.inventory.service;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Thrown when a stock reservation cannot be satisfied. Lists every inventory item that is short, not just the first.
+ */
+@Getter
+public class InsufficientStockException extends IllegalArgumentException {
+
+    private final List<Shortage> shortages;
+
+    public InsufficientStockException(List<Shortage> shortages) {
+        super("Not enough stock for " + shortages.stream()
+                .map(shortage -> "inventory " + shortage.inventoryId()
+                        + " (requested " + shortage.requested() + ", available " + shortage.available() + ")")
+                .collect(Collectors.joining(", ")));
+        this.shortages = shortages;
+    }
+
+    public record Shortage(Long inventoryId, int requested, int available) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.sunflowers.ecommerce.inventory.service;
+
+import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes many inventory rows with one set-based statement each, passing the rows as Postgres arrays.
+ * Rows whose values actually change get a new version; rewriting a row with its current values keeps its version.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryBulkWriter {
+
+    private static final String ALLOCATE_IDS = "SELECT nextval('inventory_seq') FROM generate_series(1, ?)";
+    private static final String UPSERT = "INSERT INTO inventory (id, product_id, color_name, size, stock) " +
+            "SELECT * FROM unnest(?::bigint[], ?::integer[], ?::varchar[], ?::varchar[], ?::integer[]) " +
+            "ON CONFLICT (product_id, color_name, size) DO UPDATE SET stock = EXCLUDED.stock, " +
+            "version = CASE WHEN inventory.stock <> EXCLUDED.stock THEN nextval('inventory_version_seq') ELSE inventory.version END, " +
+            "version_xid = CASE WHEN inventory.stock <> EXCLUDED.stock THEN " + Inventory.WRITER_XID + " ELSE inventory.version_xid END " +
+            "RETURNING id, product_id, color_name, size, stock, version";
+    private static final String UPDATE = "UPDATE inventory i SET color_name = u.color_name, size = u.size, stock = u.stock, " +
+            "version = CASE WHEN (i.color_name, i.size, i.stock) IS DISTINCT FROM (u.color_name, u.size, u.stock) " +
+            "THEN nextval('inventory_version_seq') ELSE i.version END, " +
+            "version_xid = CASE WHEN (i.color_name, i.size, i.stock) IS DISTINCT FROM (u.color_name, u.size, u.stock) " +
+            "THEN " + Inventory.WRITER_XID + " ELSE i.version_xid END " +
+            "FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::integer[]) AS u(id, color_name, size, stock) " +
+            "WHERE i.id = u.id " +
+            "RETURNING i.id, i.product_id, i.color_name, i.size, i.stock, i.version";
+
+    private static final RowMapper<InventoryRow> ROW_MAPPER = (rs, rowNum) -> new InventoryRow(
+            rs.getLong("id"), rs.getInt("product_id"), rs.getString("color_name"), rs.getString("size"), rs.getInt("stock"),
+            rs.getLong("version"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the rows, or sets the stock of the existing row with the same product, color and size.
+     * The rows must have distinct product, color and size.
+     *
+     * @param rows the rows to write; their ids and versions are ignored
+     * @return the written rows with their ids, in no particular order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<InventoryRow> upsert(List<InventoryRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Long[] ids = allocateIds(rows.size()).toArray(new Long[0]);
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPSERT);
+            ps.setArray(1, connection.createArrayOf("bigint", ids));
+            ps.setArray(2, array(connection, "integer", rows, InventoryRow::productId));
+            ps.setArray(3, array(connection, "varchar", rows, InventoryRow::color));
+            ps.setArray(4, array(connection, "varchar", rows, InventoryRow::size));
+            ps.setArray(5, array(connection, "integer", rows, InventoryRow::stock));
+            return ps;
+        }, ROW_MAPPER);
+    }
+
+    /**
+     * Sets the color, size and stock of existing rows by id.
+     * The rows must have distinct ids.
+     *
+     * @param rows the rows to write; their product ids and versions are ignored
+     * @return the updated rows, in no particular order; rows whose id does not exist are missing
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<InventoryRow> update(List<InventoryRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPDATE);
+            ps.setArray(1, array(connection, "bigint", rows, InventoryRow::id));
+            ps.setArray(2, array(connection, "varchar", rows, InventoryRow::color));
+            ps.setArray(3, array(connection, "varchar", rows, InventoryRow::size));
+            ps.setArray(4, array(connection, "integer", rows, InventoryRow::stock));
+            return ps;
+        }, ROW_MAPPER);
+    }
+
+    /**
+     * Reserves ids from inventory_seq the same way Hibernate's pooled optimizer does, so they never collide with
+     * the ids of inventories saved through JPA.
+     */
+    private List<Long> allocateIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + Inventory.ID_ALLOCATION_SIZE - 1) / Inventory.ID_ALLOCATION_SIZE;
+            for (Long high : jdbcTemplate.queryForList(ALLOCATE_IDS, Long.class, blocks)) {
+                for (long id = Math.max(1, high - Inventory.ID_ALLOCATION_SIZE + 1); id <= high && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static Array array(Connection connection, String type, List<InventoryRow> rows,
+                               Function<InventoryRow, Object> column) throws SQLException {
+        return connection.createArrayOf(type, rows.stream().map(column).toArray());
+    }
+
+    /**
+     * @param id        the inventory id
+     * @param productId the product id
+     * @param color     the color name
+     * @param size      the size
+     * @param stock     the stock
+     * @param version   the version, or null for a row that was not written yet
+     */
+    public record InventoryRow(Long id, Integer productId, String color, String size, int stock, Long version) {
+    }
+}
@@ -6,13 +6,23 @@ import com.sunflowers.ecommerce.inventory.repository.ColorRepository;
 import com.sunflowers.ecommerce.inventory.repository.InventoryRepository;
 import com.sunflowers.ecommerce.inventory.request.CreateColorRequest;
 import com.sunflowers.ecommerce.inventory.request.CreateInventoryRequest;
+import com.sunflowers.ecommerce.product.entity.Product;
 import com.sunflowers.ecommerce.product.repository.ProductRepository;
+import com.sunflowers.ecommerce.product.service.ProductChangedEvent;
+import com.sunflowers.ecommerce.response.CachedResponses;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +31,9 @@ public class InventoryService {
     private final InventoryRepository inventoryRepository;
     private final ColorRepository colorRepository;
     private final ProductRepository productRepository;
+    private final InventoryBulkWriter inventoryBulkWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CachedResponses cachedResponses;
 
     public Inventory getProductInventory(Long inventoryId){
         return inventoryRepository.findById(inventoryId)
@@ -35,33 +48,107 @@ public class InventoryService {
         return inventoryRepository.findDistinctSizes();
     }
 
+    /**
+     * Creates or updates inventories with one statement for all new rows and one for all rows given by id.
+     * A new row with the product, color and size of an existing inventory sets the stock of that inventory.
+     * When several rows target the same inventory, the last one wins.
+     *
+     * @param inventoryRequest the inventories to create, or to update when they carry an id
+     * @return the written inventories, in the order of the requests
+     * @throws NoSuchElementException if a product, color or inventory does not exist
+     */
     @Transactional
     public Iterable<Inventory> addInventories(Iterable<CreateInventoryRequest> inventoryRequest) {
-        ArrayList<Inventory> inventories = new ArrayList<>();
-        for (CreateInventoryRequest request : inventoryRequest) {
-
+        List<CreateInventoryRequest> requests = new ArrayList<>();
+        inventoryRequest.forEach(requests::add);
+        for (CreateInventoryRequest request : requests) {
             if(request.getStock() < 0) throw new IllegalArgumentException("Stock cannot be negative");
             if(request.getSize().length() > 5 || request.getSize().isEmpty()) throw new IllegalArgumentException("Invalid size");
+        }
+
+        Map<String, Color> colors = new HashMap<>();
+        colorRepository.findAllById(requests.stream().map(CreateInventoryRequest::getColor).collect(Collectors.toSet()))
+                .forEach(color -> colors.put(color.getName(), color));
 
-            Inventory inventory;
-            if(request.getId() == null) {
-                inventory = Inventory.builder()
-                        .product(productRepository.findById(request.getProductId()).orElseThrow(() -> new NoSuchElementException("Product not found")))
-                        .color(colorRepository.findById(request.getColor()).orElseThrow(() -> new NoSuchElementException("Color not found")))
-                        .size(request.getSize().toUpperCase())
-                        .stock(request.getStock())
-                        .build();
+        Map<Integer, Product> products = new HashMap<>();
+        loadProducts(requests.stream()
+                .filter(request -> request.getId() == null)
+                .map(request -> request.getProductId().intValue())
+                .collect(Collectors.toSet()), products);
+
+        Map<Long, InventoryBulkWriter.InventoryRow> updates = new LinkedHashMap<>();
+        Map<String, InventoryBulkWriter.InventoryRow> inserts = new LinkedHashMap<>();
+        for (CreateInventoryRequest request : requests) {
+            if (request.getId() == null && !products.containsKey(request.getProductId().intValue())) {
+                throw new NoSuchElementException("Product not found");
+            }
+            if (!colors.containsKey(request.getColor())) {
+                throw new NoSuchElementException("Color not found");
+            }
+
+            if (request.getId() == null) {
+                InventoryBulkWriter.InventoryRow row = new InventoryBulkWriter.InventoryRow(null, request.getProductId().intValue(),
+                        request.getColor(), request.getSize().toUpperCase(), request.getStock(), null);
+                inserts.put(variantKey(row), row);
             } else {
-                inventory = inventoryRepository.findById(request.getId()).orElseThrow(() -> new NoSuchElementException("Inventory not found"));
-                inventory.setStock(request.getStock());
-                inventory.setSize(request.getSize().toUpperCase());
-                inventory.setColor(colorRepository.findById(request.getColor()).orElseThrow(() -> new NoSuchElementException("Color not found")));
+                updates.put(request.getId(), new InventoryBulkWriter.InventoryRow(request.getId(), null,
+                        request.getColor(), request.getSize().toUpperCase(), request.getStock(), null));
             }
-            inventories.add(inventoryRepository.save(inventory));
         }
+
+        Map<Long, InventoryBulkWriter.InventoryRow> updated = new HashMap<>();
+        inventoryBulkWriter.update(new ArrayList<>(updates.values())).forEach(row -> updated.put(row.id(), row));
+        for (Long id : updates.keySet()) {
+            if (!updated.containsKey(id)) {
+                throw new NoSuchElementException("Inventory not found");
+            }
+        }
+        Map<String, InventoryBulkWriter.InventoryRow> upserted = new HashMap<>();
+        inventoryBulkWriter.upsert(new ArrayList<>(inserts.values())).forEach(row -> upserted.put(variantKey(row), row));
+
+        loadProducts(updated.values().stream()
+                .map(InventoryBulkWriter.InventoryRow::productId)
+                .filter(productId -> !products.containsKey(productId))
+                .collect(Collectors.toSet()), products);
+
+        List<Inventory> inventories = new ArrayList<>();
+        for (CreateInventoryRequest request : requests) {
+            InventoryBulkWriter.InventoryRow row = request.getId() == null
+                    ? upserted.get(variantKey(request))
+                    : updated.get(request.getId());
+            inventories.add(Inventory.builder()
+                    .id(row.id())
+                    .product(products.get(row.productId()))
+                    .color(colors.get(row.color()))
+                    .size(row.size())
+                    .stock(row.stock())
+                    .version(row.version())
+                    .build());
+        }
+
+        Set<Integer> productIds = inventories.stream()
+                .map(inventory -> inventory.getProduct().getId())
+                .collect(Collectors.toSet());
+        eventPublisher.publishEvent(new ProductChangedEvent(productIds));
+        productIds.forEach(productId -> cachedResponses.invalidate(CachedResponses.Resource.PRODUCT, productId));
+        cachedResponses.invalidate(CachedResponses.Resource.INVENTORY_VALUES);
         return inventories;
     }
 
+    private void loadProducts(Set<Integer> ids, Map<Integer, Product> products) {
+        if (!ids.isEmpty()) {
+            productRepository.findByIdIn(ids).forEach(product -> products.put(product.getId(), product));
+        }
+    }
+
+    private static String variantKey(InventoryBulkWriter.InventoryRow row) {
+        return row.productId() + ":" + row.color() + ":" + row.size();
+    }
+
+    private static String variantKey(CreateInventoryRequest request) {
+        return request.getProductId().intValue() + ":" + request.getColor() + ":" + request.getSize().toUpperCase();
+    }
+
     public Iterable<Color> addColors(Iterable<CreateColorRequest> colors) {
         ArrayList<Color> colorList = new ArrayList<>();
         for (CreateColorRequest color : colors) {
@@ -71,6 +158,7 @@ public class InventoryService {
                     .build();
             colorList.add(colorRepository.save(newColor));
         }
+        cachedResponses.invalidate(CachedResponses.Resource.INVENTORY_VALUES);
         return colorList;
     }
 }
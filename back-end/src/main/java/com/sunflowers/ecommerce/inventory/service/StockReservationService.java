@@ -0,0 +1,140 @@
+package com.sunflowers.ecommerce.inventory.service;
+
+import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import com.sunflowers.ecommerce.response.CachedResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reserves and releases inventory stock with conditional updates executed by the database, so concurrent
+ * checkouts can neither oversell nor overwrite each other's decrements.
+ * Rows are always updated in ascending id order, so two reservations touching the same items lock them in the
+ * same order and cannot deadlock.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private static final String RESERVE = "UPDATE inventory SET stock = stock - ?, version = nextval('inventory_version_seq'), " +
+            "version_xid = " + Inventory.WRITER_XID + " WHERE id = ? AND stock >= ?";
+    private static final String RELEASE = "UPDATE inventory SET stock = stock + ?, version = nextval('inventory_version_seq'), " +
+            "version_xid = " + Inventory.WRITER_XID + " WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final CachedResponses cachedResponses;
+
+    /**
+     * Decrements the stock of every item in a single batch.
+     * If any item is short, the whole reservation fails and the caller's transaction must roll back the items that
+     * were already decremented.
+     *
+     * @param quantities the amount to reserve, by inventory id
+     * @throws InsufficientStockException listing every item without enough stock
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<Long, Integer> quantities) {
+        List<InsufficientStockException.Shortage> shortages = tryReserve(quantities);
+        if (!shortages.isEmpty()) {
+            throw new InsufficientStockException(shortages);
+        }
+    }
+
+    /**
+     * Decrements the stock of every item that has enough of it, in a single batch.
+     * Items without enough stock are left untouched and reported.
+     *
+     * @param quantities the amount to reserve, by inventory id
+     * @return the items that could not be reserved
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<InsufficientStockException.Shortage> tryReserve(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> ordered = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, ordered.get(i).getValue());
+                ps.setLong(2, ordered.get(i).getKey());
+                ps.setInt(3, ordered.get(i).getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ordered.size();
+            }
+        });
+
+        invalidateProducts(quantities.keySet());
+
+        Map<Long, Integer> shortIds = new TreeMap<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                shortIds.put(ordered.get(i).getKey(), ordered.get(i).getValue());
+            }
+        }
+        return shortIds.isEmpty() ? List.of() : shortages(shortIds);
+    }
+
+    /**
+     * Returns previously reserved stock in a single batch.
+     *
+     * @param quantities the amount to release, by inventory id
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> ordered = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        jdbcTemplate.batchUpdate(RELEASE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, ordered.get(i).getValue());
+                ps.setLong(2, ordered.get(i).getKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ordered.size();
+            }
+        });
+        invalidateProducts(quantities.keySet());
+    }
+
+    /**
+     * Changes the ETag of the products owning the items, since product responses show their stock.
+     */
+    private void invalidateProducts(Collection<Long> inventoryIds) {
+        if (inventoryIds.isEmpty()) {
+            return;
+        }
+        namedParameterJdbcTemplate.queryForList("SELECT DISTINCT product_id FROM inventory WHERE id IN (:ids)",
+                        new MapSqlParameterSource("ids", inventoryIds), Integer.class)
+                .forEach(productId -> cachedResponses.invalidate(CachedResponses.Resource.PRODUCT, productId));
+    }
+
+    private List<InsufficientStockException.Shortage> shortages(Map<Long, Integer> requested) {
+        Map<Long, Integer> available = new TreeMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, stock FROM inventory WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", requested.keySet()),
+                rs -> {
+                    available.put(rs.getLong("id"), rs.getInt("stock"));
+                });
+
+        List<InsufficientStockException.Shortage> shortages = new ArrayList<>();
+        requested.forEach((id, amount) ->
+                shortages.add(new InsufficientStockException.Shortage(id, amount, available.getOrDefault(id, 0))));
+        return shortages;
+    }
+}
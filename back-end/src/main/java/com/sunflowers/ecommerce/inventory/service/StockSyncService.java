@@ -0,0 +1,215 @@
+package com.sunflowers.ecommerce.inventory.service;
+
+import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import com.sunflowers.ecommerce.inventory.request.StockSyncRequest;
+import com.sunflowers.ecommerce.inventory.response.StockChange;
+import com.sunflowers.ecommerce.inventory.response.StockChangesResponse;
+import com.sunflowers.ecommerce.inventory.response.StockSyncResponse;
+import com.sunflowers.ecommerce.product.service.ProductChangedEvent;
+import com.sunflowers.ecommerce.response.CachedResponses;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+
+/**
+ * Applies stock deltas sent by the warehouse feed and serves the stock changes since a version.
+ * <p>
+ * The feed sends the stock of changed inventories only, each with the version it was computed from. A stock is
+ * written only if the inventory is still at that version, so a checkout reserving stock in between is never
+ * overwritten; the feed gets a conflict with the current stock and version instead and can send a corrected stock.
+ */
+@Service
+public class StockSyncService {
+
+    private static final String LOCK = "SELECT id FROM inventory WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+    private static final String APPLY = "UPDATE inventory i SET stock = u.stock, version = nextval('inventory_version_seq'), " +
+            "version_xid = " + Inventory.WRITER_XID + " " +
+            "FROM unnest(?::bigint[], ?::integer[], ?::bigint[]) AS u(id, stock, version) " +
+            "WHERE i.id = u.id AND i.version = u.version AND i.stock <> u.stock " +
+            "RETURNING i.id, i.product_id, i.stock, i.version";
+    private static final String CURRENT = "SELECT id, product_id, stock, version FROM inventory WHERE id IN (:ids)";
+    private static final String HORIZON = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+    private static final String CHANGES = "SELECT id, product_id, stock, version, version_xid FROM inventory " +
+            "WHERE version_xid >= ? AND version_xid < ? ORDER BY version_xid, id LIMIT ?";
+    private static final String TRANSACTION_CHANGES = "SELECT id, product_id, stock, version, version_xid FROM inventory " +
+            "WHERE version_xid = ? ORDER BY id";
+
+    private static final RowMapper<StockChange> CHANGE_MAPPER = (rs, rowNum) -> new StockChange(
+            rs.getLong("id"), rs.getInt("product_id"), rs.getInt("stock"), rs.getLong("version"));
+    private static final RowMapper<FeedRow> FEED_MAPPER = (rs, rowNum) -> new FeedRow(
+            CHANGE_MAPPER.mapRow(rs, rowNum), rs.getLong("version_xid"));
+
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CachedResponses cachedResponses;
+
+    @Value("${inventory.sync.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${inventory.sync.max-changes:1000}")
+    private int maxChanges;
+
+    public StockSyncService(PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate,
+                            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                            ApplicationEventPublisher eventPublisher, CachedResponses cachedResponses) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.cachedResponses = cachedResponses;
+    }
+
+    /**
+     * Writes the sent stocks of the inventories still at the sent versions, {@code inventory.sync.batch-size}
+     * inventories per transaction. Each inventory is checked on its own, so conflicts do not keep the others from
+     * being written. When an inventory is sent several times, the last one wins.
+     *
+     * @param requests the new stocks
+     * @return the written inventories, the number of unchanged ones and the conflicts
+     * @throws IllegalArgumentException if a request lacks a value or has a negative stock
+     */
+    public StockSyncResponse sync(Iterable<StockSyncRequest> requests) {
+        Map<Long, StockSyncRequest> latest = new LinkedHashMap<>();
+        for (StockSyncRequest request : requests) {
+            if (request.getInventoryId() == null || request.getStock() == null || request.getVersion() == null) {
+                throw new IllegalArgumentException("Inventory id, stock and version are mandatory");
+            }
+            if (request.getStock() < 0) throw new IllegalArgumentException("Stock cannot be negative");
+            latest.put(request.getInventoryId(), request);
+        }
+
+        List<StockSyncRequest> ordered = new ArrayList<>(latest.values());
+        List<StockChange> applied = new ArrayList<>();
+        List<StockSyncResponse.Conflict> conflicts = new ArrayList<>();
+        int unchanged = 0;
+        for (int from = 0; from < ordered.size(); from += batchSize) {
+            List<StockSyncRequest> batch = ordered.subList(from, Math.min(from + batchSize, ordered.size()));
+            unchanged += transactionTemplate.execute(status -> apply(batch, applied, conflicts));
+        }
+
+        return StockSyncResponse.builder()
+                .applied(applied)
+                .unchanged(unchanged)
+                .conflicts(conflicts)
+                .build();
+    }
+
+    /**
+     * Returns the inventories changed since a position of the feed, grouped by the transaction that changed them,
+     * oldest transaction first. An inventory changed several times appears once, with its latest stock and version.
+     * <p>
+     * Versions are taken when a row is written, not when its transaction commits, so a row with a lower version can
+     * still be committed after a higher one was read. The feed is therefore ordered by the id of the writing
+     * transaction instead, and only serves the changes of transactions older than every transaction still running:
+     * those are final, and any later change of the same rows is made by a newer transaction, so following {@code next}
+     * never misses a change. A long-running transaction delays the feed until it ends.
+     * <p>
+     * The changes of one transaction are never split between responses, so a transaction with more changes than the
+     * limit is returned whole.
+     *
+     * @param since the {@code next} of the previous response, or 0 for all inventories
+     * @param limit the maximum number of changes, capped by {@code inventory.sync.max-changes}
+     * @return the changes and the position to continue from
+     */
+    public StockChangesResponse changesSince(long since, int limit) {
+        if (since < 0) throw new IllegalArgumentException("Position cannot be negative");
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be positive");
+
+        int capped = Math.min(limit, maxChanges);
+        long horizon = jdbcTemplate.queryForObject(HORIZON, Long.class);
+        List<FeedRow> rows = jdbcTemplate.query(CHANGES, FEED_MAPPER, since, horizon, capped + 1);
+        if (rows.size() <= capped) {
+            return StockChangesResponse.builder()
+                    .changes(rows.stream().map(FeedRow::change).toList())
+                    .next(Math.max(since, horizon))
+                    .hasMore(false)
+                    .build();
+        }
+
+        // Leave out the transaction cut by the limit, unless it is the only one
+        long cut = rows.get(capped).xid();
+        List<FeedRow> complete = rows.stream().filter(row -> row.xid() < cut).toList();
+        long next = cut;
+        if (complete.isEmpty()) {
+            complete = jdbcTemplate.query(TRANSACTION_CHANGES, FEED_MAPPER, cut);
+            next = cut + 1;
+        }
+        return StockChangesResponse.builder()
+                .changes(complete.stream().map(FeedRow::change).toList())
+                .next(next)
+                .hasMore(true)
+                .build();
+    }
+
+    /**
+     * Locks the inventories of the batch in id order, like stock reservations do, writes the current ones and sorts
+     * the others into unchanged and conflicting.
+     *
+     * @return the number of unchanged inventories
+     */
+    private int apply(List<StockSyncRequest> batch, List<StockChange> applied, List<StockSyncResponse.Conflict> conflicts) {
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids",
+                batch.stream().map(StockSyncRequest::getInventoryId).toList());
+        namedParameterJdbcTemplate.queryForList(LOCK, ids, Long.class);
+
+        List<StockChange> written = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(APPLY);
+            ps.setArray(1, connection.createArrayOf("bigint", batch.stream().map(StockSyncRequest::getInventoryId).toArray()));
+            ps.setArray(2, connection.createArrayOf("integer", batch.stream().map(StockSyncRequest::getStock).toArray()));
+            ps.setArray(3, connection.createArrayOf("bigint", batch.stream().map(StockSyncRequest::getVersion).toArray()));
+            return ps;
+        }, CHANGE_MAPPER);
+        applied.addAll(written);
+
+        Set<Long> writtenIds = new HashSet<>();
+        written.forEach(change -> writtenIds.add(change.inventoryId()));
+        List<Long> rest = batch.stream()
+                .map(StockSyncRequest::getInventoryId)
+                .filter(id -> !writtenIds.contains(id))
+                .toList();
+        Map<Long, StockChange> current = new HashMap<>();
+        if (!rest.isEmpty()) {
+            namedParameterJdbcTemplate.query(CURRENT, new MapSqlParameterSource("ids", rest), CHANGE_MAPPER)
+                    .forEach(change -> current.put(change.inventoryId(), change));
+        }
+
+        int unchanged = 0;
+        for (StockSyncRequest request : batch) {
+            if (writtenIds.contains(request.getInventoryId())) {
+                continue;
+            }
+            StockChange change = current.get(request.getInventoryId());
+            if (change != null && change.version() == request.getVersion()) {
+                unchanged++;
+            } else {
+                conflicts.add(new StockSyncResponse.Conflict(request.getInventoryId(), request.getVersion(),
+                        change == null ? null : change.version(), change == null ? null : change.stock()));
+            }
+        }
+
+        if (!written.isEmpty()) {
+            Set<Integer> productIds = new HashSet<>();
+            written.forEach(change -> productIds.add(change.productId()));
+            eventPublisher.publishEvent(new ProductChangedEvent(productIds));
+            productIds.forEach(productId -> cachedResponses.invalidate(CachedResponses.Resource.PRODUCT, productId));
+        }
+        return unchanged;
+    }
+
+    /**
+     * A change with the id of the transaction that made it.
+     */
+    private record FeedRow(StockChange change, long xid) {
+    }
+}
@@ -10,11 +10,19 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.sunflowers.ecommerce.order.config.PayPalEndpoints.*;
 
@@ -22,17 +30,35 @@ import static com.sunflowers.ecommerce.order.config.PayPalEndpoints.*;
 @Slf4j
 public class PayPalHttpClient {
 
+    private static final String REQUEST_ID_HEADER = "PayPal-Request-Id";
+
     private final HttpClient httpClient;
     private final PaypalConfig paypalConfig;
     private final ObjectMapper objectMapper;
+    private final PaypalAccessTokenHolder accessTokenHolder;
+    private final PayPalResilience resilience;
+    /**
+     * Runs token refreshes and response deserialization, which block on the response stream.
+     * Kept apart from the client's own executor so readers can never starve the threads delivering the data.
+     */
+    private final ExecutorService executor;
 
     @Autowired
-    public PayPalHttpClient(PaypalConfig paypalConfig, ObjectMapper objectMapper) {
+    public PayPalHttpClient(PaypalConfig paypalConfig, ObjectMapper objectMapper, PayPalResilience resilience) {
         this.paypalConfig = paypalConfig;
         this.objectMapper = objectMapper;
+        this.resilience = resilience;
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(paypalConfig.getClientThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "paypal-http-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         httpClient = HttpClient.newBuilder()
-                .version(HttpClient.Version.HTTP_1_1)
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(paypalConfig.getConnectTimeout())
                 .build();
+        accessTokenHolder = new PaypalAccessTokenHolder(this::requestAccessToken, paypalConfig.getTokenRefreshSkew(), executor);
     }
 
     private String encodeBasicCredentials() {
@@ -40,54 +66,151 @@ public class PayPalHttpClient {
         return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes());
     }
 
+    /**
+     * Returns the cached access token, requesting a new one from PayPal only when it is about to expire.
+     * A failed token request is not cached, so the next call tries again.
+     */
     public PaypalAccessToken getAccessToken() throws Exception {
+        return accessTokenHolder.get();
+    }
+
+    private PaypalAccessToken requestAccessToken() throws Exception {
         var request = HttpRequest.newBuilder()
                 .uri(URI.create(createUrl(paypalConfig.getBaseUrl(), GET_ACCESS_TOKEN)))
+                .timeout(paypalConfig.getRequestTimeout())
                 .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                 .header(HttpHeaders.AUTHORIZATION, encodeBasicCredentials())
                 .header(HttpHeaders.ACCEPT_LANGUAGE, "en_US")
                 .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
                 .POST(HttpRequest.BodyPublishers.ofString("grant_type=client_credentials"))
                 .build();
-        var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        var content = response.body();
-        return objectMapper.readValue(content, PaypalAccessToken.class);
+        var response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() >= 500 || response.statusCode() == 429) {
+            discard(response);
+            throw new PayPalServerException(response.statusCode());
+        }
+        if (response.statusCode() / 100 != 2) {
+            discard(response);
+            throw new IllegalStateException("PayPal rejected the access token request with status " + response.statusCode());
+        }
+        return readBody(response, PaypalAccessToken.class);
     }
 
-    public PaypalOrderResponse createOrder(PaypalOrderRequest orderRequest) throws Exception {
-        var accessTokenDto = getAccessToken();
-        var payload = objectMapper.writeValueAsString(orderRequest);
+    public PaypalOrderResponse createOrder(PaypalOrderRequest orderRequest, String requestId) throws Exception {
+        return await(createOrderAsync(orderRequest, requestId));
+    }
+
+    /**
+     * Creates the PayPal order without blocking the calling thread.
+     *
+     * @param orderRequest the order to create
+     * @param requestId    the idempotency key, so a retried request never creates a second PayPal order
+     * @return a future completed with the created order
+     */
+    public CompletableFuture<PaypalOrderResponse> createOrderAsync(PaypalOrderRequest orderRequest, String requestId) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(orderRequest);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
         var request = HttpRequest.newBuilder()
                 .uri(URI.create(createUrl(paypalConfig.getBaseUrl(), ORDER_CHECKOUT)))
                 .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessTokenDto.getAccessToken())
-                .POST(HttpRequest.BodyPublishers.ofString(payload))
-                .build();
-        var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        var content = response.body();
-        return objectMapper.readValue(content, PaypalOrderResponse.class);
-
+                .header(REQUEST_ID_HEADER, requestId)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload));
+        return resilience.execute(() -> sendAuthorizedAsync(request.copy())
+                .thenApplyAsync(response -> readBody(response, PaypalOrderResponse.class), executor));
     }
 
     public PaypalCaptureResponse captureOrder(String token) throws Exception {
-        var accessTokenDto = getAccessToken();
+        return await(captureOrderAsync(token));
+    }
+
+    /**
+     * Captures the payment of a PayPal order without blocking the calling thread.
+     *
+     * @param token the PayPal order id
+     * @return a future completed with the capture result
+     */
+    public CompletableFuture<PaypalCaptureResponse> captureOrderAsync(String token) {
         var captureUrl = createUrl(paypalConfig.getBaseUrl(), CAPTURE_ORDER, token);
 
         var request = HttpRequest.newBuilder()
                 .uri(URI.create(captureUrl))
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessTokenDto.getAccessToken())
                 .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .POST(HttpRequest.BodyPublishers.noBody())
-                .build();
+                .header(REQUEST_ID_HEADER, "capture-" + token)
+                .POST(HttpRequest.BodyPublishers.noBody());
+
+        return resilience.execute(() -> sendAuthorizedAsync(request.copy())
+                .thenApplyAsync(response -> {
+                    if (response.statusCode() != 201) {
+                        discard(response);
+                        throw new CompletionException(new Exception("Failed to capture order"));
+                    }
+                    return readBody(response, PaypalCaptureResponse.class);
+                }, executor));
+    }
 
-        var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        var content = response.body();
+    /**
+     * Sends the request with the cached access token.
+     * If PayPal rejects the token before its advertised expiry, it is discarded and the request is sent once more with a new one.
+     */
+    private CompletableFuture<HttpResponse<InputStream>> sendAuthorizedAsync(HttpRequest.Builder request) {
+        request.timeout(paypalConfig.getRequestTimeout());
+        return accessTokenHolder.getAsync().thenCompose(accessToken -> send(request.copy(), accessToken)
+                .thenCompose(response -> {
+                    if (response.statusCode() != 401) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+
+                    discard(response);
+                    accessTokenHolder.invalidate(accessToken);
+                    return accessTokenHolder.getAsync().thenCompose(newToken -> send(request, newToken));
+                }))
+                .thenApply(response -> {
+                    if (response.statusCode() >= 500 || response.statusCode() == 429) {
+                        discard(response);
+                        throw new CompletionException(new PayPalServerException(response.statusCode()));
+                    }
+                    return response;
+                });
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> send(HttpRequest.Builder request, PaypalAccessToken accessToken) {
+        return httpClient.sendAsync(request
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken.getAccessToken())
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
 
-        if(response.statusCode() != 201) {
-            throw new Exception("Failed to capture order");
+    /**
+     * Deserializes the response while it is being received, without buffering it into a string first.
+     */
+    private <T> T readBody(HttpResponse<InputStream> response, Class<T> type) {
+        try (InputStream body = response.body()) {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        return objectMapper.readValue(content, PaypalCaptureResponse.class);
+    private void discard(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            log.debug("Failed to close PayPal response body", e);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 }
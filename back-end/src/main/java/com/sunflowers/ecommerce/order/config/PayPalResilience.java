@@ -0,0 +1,108 @@
+package com.sunflowers.ecommerce.order.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Resilience layer around the PayPal API.
+ * Each attempt goes through a concurrency bulkhead and a failure-rate circuit breaker; transient failures
+ * (I/O errors, timeouts, 5xx and 429 responses) are retried with jittered exponential backoff. While the circuit
+ * is open or the bulkhead is full, calls fail immediately instead of waiting on PayPal.
+ */
+@Slf4j
+@Component
+public class PayPalResilience {
+
+    private static final String NAME = "paypal";
+
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private final ScheduledExecutorService retryScheduler;
+
+    public PayPalResilience(PaypalConfig paypalConfig, MeterRegistry meterRegistry) {
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(paypalConfig.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(paypalConfig.getFailureRateThreshold())
+                .slowCallRateThreshold(paypalConfig.getFailureRateThreshold())
+                .slowCallDurationThreshold(paypalConfig.getSlowCallDuration())
+                .slidingWindowSize(paypalConfig.getCircuitWindowSize())
+                .minimumNumberOfCalls(paypalConfig.getCircuitWindowSize() / 2)
+                .waitDurationInOpenState(paypalConfig.getCircuitOpenDuration())
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .recordException(PayPalResilience::isTransient)
+                .build());
+        RetryRegistry retryRegistry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(paypalConfig.getRetryMaxAttempts())
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(paypalConfig.getRetryInitialBackoff(), 2.0, 0.5))
+                .retryOnException(PayPalResilience::isTransient)
+                .build());
+
+        this.bulkhead = bulkheadRegistry.bulkhead(NAME);
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        this.retry = retryRegistry.retry(NAME);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "paypal-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedRetryMetrics.ofRetryRegistry(retryRegistry).bindTo(meterRegistry);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            log.warn("PayPal circuit breaker transition: {}", event.getStateTransition());
+            meterRegistry.counter("paypal.circuit.transitions",
+                    "from", event.getStateTransition().getFromState().name(),
+                    "to", event.getStateTransition().getToState().name()).increment();
+        });
+    }
+
+    /**
+     * Runs an idempotent PayPal call through the bulkhead, circuit breaker and retry policy.
+     * The supplier is invoked once per attempt, so it must send the same idempotency key every time.
+     *
+     * @param call the call to make
+     * @return a future completed with the result of the first successful attempt
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletionStage<T>> call) {
+        Supplier<CompletionStage<T>> guarded = CircuitBreaker.decorateCompletionStage(circuitBreaker,
+                Bulkhead.decorateCompletionStage(bulkhead, call));
+        return Retry.decorateCompletionStage(retry, retryScheduler, guarded).get().toCompletableFuture();
+    }
+
+    private static boolean isTransient(Throwable throwable) {
+        while ((throwable instanceof CompletionException || throwable instanceof ExecutionException)
+                && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable instanceof IOException;
+    }
+}
@@ -0,0 +1,20 @@
+package com.sunflowers.ecommerce.order.config;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Thrown when PayPal answers with a status that signals a transient failure on its side (5xx or 429).
+ * The request may be retried with the same idempotency key.
+ */
+@Getter
+public class PayPalServerException extends IOException {
+
+    private final int statusCode;
+
+    public PayPalServerException(int statusCode) {
+        super("PayPal responded with status " + statusCode);
+        this.statusCode = statusCode;
+    }
+}
@@ -0,0 +1,103 @@
+package com.sunflowers.ecommerce.order.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the PayPal OAuth access token until shortly before it expires.
+ * Once a token enters its refresh window it is still handed out while a new one is fetched in the background;
+ * concurrent callers share a single in-flight refresh, so at most one token request is made per expiry window.
+ */
+class PaypalAccessTokenHolder {
+
+    private final Callable<PaypalAccessToken> fetcher;
+    private final Duration refreshSkew;
+    private final Executor executor;
+    private final AtomicReference<CompletableFuture<PaypalAccessToken>> inFlight = new AtomicReference<>();
+
+    private volatile PaypalAccessToken token;
+
+    PaypalAccessTokenHolder(Callable<PaypalAccessToken> fetcher, Duration refreshSkew, Executor executor) {
+        this.fetcher = fetcher;
+        this.refreshSkew = refreshSkew;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns a valid access token, fetching a new one only when there is none or it has expired.
+     *
+     * @return the access token
+     * @throws Exception if the token could not be fetched
+     */
+    PaypalAccessToken get() throws Exception {
+        try {
+            return getAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a future completed with a valid access token, without blocking when the cached token can be used.
+     *
+     * @return the access token future
+     */
+    CompletableFuture<PaypalAccessToken> getAsync() {
+        PaypalAccessToken current = token;
+        Instant now = Instant.now();
+        if (current != null && now.isBefore(current.getExpiration())) {
+            if (now.isAfter(current.getExpiration().minus(refreshSkew))) {
+                refresh();
+            }
+            return CompletableFuture.completedFuture(current);
+        }
+        return refresh();
+    }
+
+    /**
+     * Discards the given token, e.g. after PayPal rejected it, so the next call fetches a new one.
+     *
+     * @param rejected the token that was rejected
+     */
+    void invalidate(PaypalAccessToken rejected) {
+        if (token == rejected) {
+            token = null;
+        }
+    }
+
+    private CompletableFuture<PaypalAccessToken> refresh() {
+        while (true) {
+            CompletableFuture<PaypalAccessToken> current = inFlight.get();
+            if (current != null) {
+                return current;
+            }
+            CompletableFuture<PaypalAccessToken> future = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, future)) {
+                executor.execute(() -> fetch(future));
+                return future;
+            }
+        }
+    }
+
+    private void fetch(CompletableFuture<PaypalAccessToken> future) {
+        try {
+            Instant requestedAt = Instant.now();
+            PaypalAccessToken fetched = fetcher.call();
+            fetched.setExpiration(requestedAt.plusSeconds(fetched.getExpiresIn()));
+            token = fetched;
+            inFlight.set(null);
+            future.complete(fetched);
+        } catch (Throwable e) {
+            inFlight.set(null);
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -6,6 +6,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @Getter
 @Setter
@@ -18,4 +20,27 @@ public class PaypalConfig {
     private String clientId;
     @NotEmpty
     private String secret;
+    /**
+     * How long before its expiry the access token is refreshed in the background.
+     */
+    private Duration tokenRefreshSkew = Duration.ofMinutes(5);
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration requestTimeout = Duration.ofSeconds(15);
+    /**
+     * Number of threads reading PayPal responses.
+     */
+    private int clientThreads = 8;
+    /**
+     * Maximum number of PayPal calls in flight; further calls fail immediately.
+     */
+    private int maxConcurrentCalls = 20;
+    /**
+     * Percentage of failed or slow calls in the sliding window that opens the circuit.
+     */
+    private float failureRateThreshold = 50;
+    private Duration slowCallDuration = Duration.ofSeconds(10);
+    private int circuitWindowSize = 20;
+    private Duration circuitOpenDuration = Duration.ofSeconds(30);
+    private int retryMaxAttempts = 3;
+    private Duration retryInitialBackoff = Duration.ofMillis(200);
 }
@@ -1,5 +1,7 @@
 package com.sunflowers.ecommerce.order.controller;
 
+import com.sunflowers.ecommerce.auth.config.CurrentUser;
+import com.sunflowers.ecommerce.auth.entity.User;
 import com.sunflowers.ecommerce.order.dto.OrderDto;
 import com.sunflowers.ecommerce.order.entity.Order;
 import com.sunflowers.ecommerce.order.service.OrderService;
@@ -17,8 +19,8 @@ public class OrderController {
     private final OrderService orderService;
 
     @GetMapping("/history")
-    public ResponseEntity<GeneralResponse<Page<OrderDto>>> getMyOrders(@RequestHeader(name = "Authorization") String authorizationHeader, @RequestParam(name="page", defaultValue = "0") int page) {
-        return orderService.getMyOrders(authorizationHeader, page);
+    public ResponseEntity<GeneralResponse<Page<OrderDto>>> getMyOrders(@CurrentUser User user, @RequestParam(name="page", defaultValue = "0") int page) {
+        return orderService.getMyOrders(user, page);
     }
 
     @ExceptionHandler
@@ -1,16 +1,21 @@
 package com.sunflowers.ecommerce.order.controller;
 
+import com.sunflowers.ecommerce.auth.config.CurrentUser;
+import com.sunflowers.ecommerce.auth.entity.User;
 import com.sunflowers.ecommerce.order.request.GenerateOrderRequest;
 import com.sunflowers.ecommerce.order.response.OrderStatusResponse;
 import com.sunflowers.ecommerce.order.response.PaypalOrderResponse;
 import com.sunflowers.ecommerce.order.service.PaypalService;
 import com.sunflowers.ecommerce.response.GeneralResponse;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/v1/checkout")
 public class PayPalController {
@@ -18,11 +23,10 @@ public class PayPalController {
     @Autowired
     private PaypalService paypalService;
 
-    @Transactional(rollbackFor = Exception.class)
     @PostMapping("/paypal")
     public ResponseEntity<GeneralResponse<PaypalOrderResponse>> checkout(@RequestBody GenerateOrderRequest request,
-                                                                         @RequestHeader(name = "Authorization") String authorizationHeader) throws Exception {
-        PaypalOrderResponse paypalResponse = paypalService.createOrder(authorizationHeader, request);
+                                                                         @CurrentUser User user) throws Exception {
+        PaypalOrderResponse paypalResponse = paypalService.createOrder(user, request);
 
         return ResponseEntity.ok(GeneralResponse.<PaypalOrderResponse>builder()
                 .statusCode(HttpStatus.OK.value())
@@ -33,8 +37,8 @@ public class PayPalController {
     }
 
     @GetMapping("/status")
-    public ResponseEntity<OrderStatusResponse> captureOrderStatus(@RequestParam(value = "order") String orderId, @RequestHeader(name = "Authorization") String authorizationHeader) throws Exception {
-        return ResponseEntity.ok(paypalService.captureOrder(orderId, authorizationHeader));
+    public CompletableFuture<ResponseEntity<OrderStatusResponse>> captureOrderStatus(@RequestParam(value = "order") String orderId, @CurrentUser User user) {
+        return paypalService.captureOrder(orderId, user).thenApply(ResponseEntity::ok);
     }
 
     @ExceptionHandler({IllegalArgumentException.class})
@@ -46,6 +50,15 @@ public class PayPalController {
                 .build());
     }
 
+    @ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class})
+    public ResponseEntity<GeneralResponse<Void>> handlePayPalUnavailable(Exception e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(GeneralResponse.<Void>builder()
+                .statusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message("PayPal is temporarily unavailable, please try again later")
+                .success(false)
+                .build());
+    }
+
     @ExceptionHandler({Exception.class})
     public ResponseEntity<GeneralResponse<Void>> handleException(Exception e) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(GeneralResponse.<Void>builder()
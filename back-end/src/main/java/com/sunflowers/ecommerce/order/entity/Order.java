@@ -17,7 +17,9 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_creation", columnList = "order_status, creation_date")
+})
 public class Order {
 
     @Id
@@ -1,17 +1,40 @@
 package com.sunflowers.ecommerce.order.repository;
 
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.sunflowers.ecommerce.auth.entity.User;
 import com.sunflowers.ecommerce.order.entity.Order;
+import jakarta.persistence.LockModeType;
 
 @Repository
 public interface OrderRepository extends CrudRepository<Order, UUID>{
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") UUID id);
+
+    /**
+     * Locks the oldest pending orders still waiting for the buyer to approve the payment, created before the cutoff.
+     * Rows locked by another transaction (e.g. a capture in progress) are skipped.
+     *
+     * @param cutoff the creation date before which a hold has expired
+     * @param limit  the maximum number of orders to return
+     * @return the locked orders
+     */
+    @Query(value = "SELECT * FROM orders WHERE order_status = 'PENDING' AND creation_date < :cutoff " +
+            "AND (platform_status IS NULL OR platform_status = 'CREATED') " +
+            "ORDER BY creation_date LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Order> findExpiredHolds(@Param("cutoff") Timestamp cutoff, @Param("limit") int limit);
 }
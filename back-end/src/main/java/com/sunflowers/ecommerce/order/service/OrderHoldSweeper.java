@@ -0,0 +1,36 @@
+package com.sunflowers.ecommerce.order.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically releases the stock held by pending orders whose buyer abandoned the payment, so it becomes
+ * available to other buyers again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderHoldSweeper {
+
+    private final OrderService orderService;
+
+    @Value("${order.hold.sweep-batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${order.hold.sweep-interval:PT1M}")
+    public void sweep() {
+        int expired;
+        int total = 0;
+        do {
+            expired = orderService.expireHolds(batchSize);
+            total += expired;
+        } while (expired == batchSize);
+
+        if (total > 0) {
+            log.info("Released the stock of {} expired orders", total);
+        }
+    }
+}
@@ -1,20 +1,22 @@
 package com.sunflowers.ecommerce.order.service;
 
-import com.sunflowers.ecommerce.auth.config.JwtAuthenticationFilter;
 import com.sunflowers.ecommerce.auth.entity.Address;
 import com.sunflowers.ecommerce.auth.repository.AddressRepository;
-import com.sunflowers.ecommerce.auth.service.JwtService;
-import com.sunflowers.ecommerce.auth.service.UserService;
 import com.sunflowers.ecommerce.cart.entity.CartItem;
 import com.sunflowers.ecommerce.cart.repository.CartItemRepository;
+import com.sunflowers.ecommerce.cart.service.CartStore;
+import com.sunflowers.ecommerce.email.EmailService;
+import com.sunflowers.ecommerce.email.MailBody;
 import com.sunflowers.ecommerce.inventory.dto.InventoryDTO;
-import com.sunflowers.ecommerce.inventory.repository.InventoryRepository;
+import com.sunflowers.ecommerce.inventory.service.InsufficientStockException;
+import com.sunflowers.ecommerce.inventory.service.StockReservationService;
 import com.sunflowers.ecommerce.order.entity.OrderDetail;
 import com.sunflowers.ecommerce.order.entity.OrderStatus;
 import com.sunflowers.ecommerce.order.repository.OrderRepository;
 import com.sunflowers.ecommerce.order.repository.OrderRepositoryPageable;
 import com.sunflowers.ecommerce.order.request.GenerateOrderRequest;
 import lombok.Builder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,37 +24,47 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.sunflowers.ecommerce.auth.entity.User;
-import com.sunflowers.ecommerce.auth.service.AuthService;
 import com.sunflowers.ecommerce.order.dto.OrderDto;
 import com.sunflowers.ecommerce.order.entity.Order;
 import com.sunflowers.ecommerce.response.GeneralResponse;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
-    private final AuthService  authService;
     private final OrderRepository orderRepository;
-    private final UserService userService;
-    private final JwtService jwtService;
     private final AddressRepository addressRepository;
     private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
     private final OrderRepositoryPageable orderPageableRepository;
-    private final InventoryRepository inventoryRepository;
+    private final StockReservationService stockReservationService;
+    private final EmailService emailService;
 
-    public ResponseEntity<GeneralResponse<Page<OrderDto>>> getOrders(String authorizationHeader, int page) {
-        User user = authService.validateAuthorization(authorizationHeader);
+    @Value("${order.hold.ttl:PT15M}")
+    private Duration holdTtl;
+
+    @Value("${order.hold.capture-grace:PT2M}")
+    private Duration captureGrace;
+
+    public ResponseEntity<GeneralResponse<Page<OrderDto>>> getOrders(User user, int page) {
         Pageable pageable = PageRequest.of(page, 5, Sort.by("creationDate").descending());
         Page<Order> userOrders = orderPageableRepository.findAllByUser(user, pageable);
 
@@ -93,21 +105,109 @@ public class OrderService {
         orderRepository.save(order);
     }
 
-    public Order createOrder(String authorizationHeader, GenerateOrderRequest request) {
-        String token = JwtAuthenticationFilter.getTokenFromHeader(authorizationHeader);
+    /**
+     * Stores the result of a payment capture and records the notification email in the outbox within the same
+     * transaction.
+     * A successful capture confirms the stock hold; a failed or cancelled one releases it. If the hold expired while
+     * the payment was being captured, the stock is reserved again and any item that is no longer available is logged.
+     * A capture result that was already stored is ignored, so a repeated notification neither moves the stock again
+     * nor sends a second email.
+     *
+     * @param order     the order carrying the new order and platform status
+     * @param mail      the notification email
+     * @param dedupeKey the key identifying the notification
+     */
+    @Transactional
+    public void confirmCapture(Order order, MailBody mail, String dedupeKey) {
+        Order managed = orderRepository.findByIdForUpdate(order.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+        if (managed.getOrderStatus() == order.getOrderStatus()) {
+            return;
+        }
+        boolean held = managed.getOrderStatus() == OrderStatus.PENDING;
+        boolean wasReleased = isReleased(managed.getOrderStatus());
+        boolean released = isReleased(order.getOrderStatus());
+
+        if (held && released) {
+            stockReservationService.release(quantities(managed));
+        } else if (wasReleased && !released) {
+            List<InsufficientStockException.Shortage> shortages = stockReservationService.tryReserve(quantities(managed));
+            if (!shortages.isEmpty()) {
+                log.error("Order {} was paid after its stock hold expired, items no longer available: {}", managed.getId(), shortages);
+            }
+        }
+
+        managed.setOrderStatus(order.getOrderStatus());
+        managed.setPlatformStatus(order.getPlatformStatus());
+        emailService.queueEmail(mail, dedupeKey);
+    }
+
+    /**
+     * Tells whether the order is past the point where its payment may still be captured.
+     * Captures are refused {@code order.hold.capture-grace} before the hold expires, so the expiry sweeper does not
+     * release the stock while PayPal is capturing the payment.
+     *
+     * @param order the order
+     * @return true if the payment may no longer be captured
+     */
+    public boolean isHoldExpired(Order order) {
+        long deadline = order.getCreationDate().getTime() + holdTtl.minus(captureGrace).toMillis();
+        return System.currentTimeMillis() > deadline;
+    }
+
+    /**
+     * Cancels a batch of pending orders whose buyer did not approve the payment within {@code order.hold.ttl} and
+     * returns their stock in a single batch.
+     *
+     * @param limit the maximum number of orders to expire
+     * @return the number of expired orders
+     */
+    @Transactional
+    public int expireHolds(int limit) {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - holdTtl.toMillis());
+        List<Order> expired = orderRepository.findExpiredHolds(cutoff, limit);
+        if (expired.isEmpty()) {
+            return 0;
+        }
 
-        User user = userService.getUserByEmail(jwtService.extractUsername(token));
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Order order : expired) {
+            quantities(order).forEach((inventoryId, amount) -> quantities.merge(inventoryId, amount, Integer::sum));
+            order.setOrderStatus(OrderStatus.CANCELLED);
+        }
+        stockReservationService.release(quantities);
+        return expired.size();
+    }
 
+    private Map<Long, Integer> quantities(Order order) {
+        return order.getOrderDetails().stream()
+                .collect(Collectors.toMap(detail -> detail.getInventory().getId(), OrderDetail::getAmount, Integer::sum));
+    }
+
+    private static boolean isReleased(OrderStatus status) {
+        return status == OrderStatus.FAILED || status == OrderStatus.CANCELLED;
+    }
+
+    /**
+     * Reserves the stock of the user's cart and stores the order as PENDING.
+     * The transaction ends before the payment platform is contacted. The cart is read from cart_item, so the
+     * caller writes the user's pending cart changes with {@link CartStore#flush} before calling it.
+     *
+     * @param user    the authenticated user
+     * @param request the order request
+     * @return the created order
+     */
+    @Transactional
+    public Order createOrder(User user, GenerateOrderRequest request) {
         Address address = addressRepository.findById(UUID.fromString(request.getAddressId()))
                 .orElseThrow(()-> new IllegalArgumentException("Address not found"));
 
-        if(!user.getAddresses().contains(address)) {
+        if(!address.getUser().getId().equals(user.getId())) {
             throw new IllegalArgumentException("Address not related to user");
         }
 
         List<CartItem> items = cartItemRepository.findAllByUser(user);
         Details details = createOrderDetails(items);
-        cartItemRepository.deleteAll(items);
 
         Order order =  Order.builder()
                 .user(user)
@@ -129,24 +229,66 @@ public class OrderService {
         return order;
     }
 
+    /**
+     * Stores the payment platform data of a created order, empties the ordered items from the user's cart and
+     * records the notification email.
+     *
+     * @param order     the order carrying the platform id, status and payment method
+     * @param user      the owner of the order
+     * @param mail      the notification email
+     * @param dedupeKey the key identifying the notification
+     */
+    @Transactional
+    public void recordPlatformOrder(Order order, User user, MailBody mail, String dedupeKey) {
+        Order managed = getOrderById(order.getId().toString());
+        managed.setPlatformId(order.getPlatformId());
+        managed.setPlatformStatus(order.getPlatformStatus());
+        managed.setPaymentMethod(order.getPaymentMethod());
+
+        Set<Long> ordered = managed.getOrderDetails().stream()
+                .map(detail -> detail.getInventory().getId())
+                .collect(Collectors.toSet());
+        cartStore.removeAll(user.getId(), ordered);
+
+        emailService.queueEmail(mail, dedupeKey);
+    }
+
+    /**
+     * Cancels a pending order whose payment could not be started and returns its stock.
+     * The order row is locked first, like in {@link #confirmCapture}, so the expiry sweeper or a concurrent capture
+     * cannot release the same stock again.
+     *
+     * @param orderId the order id
+     */
+    @Transactional
+    public void cancelOrder(UUID orderId) {
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+        if (order.getOrderStatus() != OrderStatus.PENDING) {
+            return;
+        }
+
+        stockReservationService.release(quantities(order));
+        order.setOrderStatus(OrderStatus.CANCELLED);
+    }
+
     /**
      * Create order details from cart items
-     * Validates stock and calculates total price
+     * Reserves the stock of all items in one batch and calculates total price
      *
      * @param items List of cart items
      * @return Details object with order details and total price
      */
     private Details createOrderDetails(List<CartItem> items){
 
+        stockReservationService.reserve(items.stream()
+                .collect(Collectors.toMap(item -> item.getInventory().getId(), CartItem::getAmount, Integer::sum)));
+
         List<OrderDetail> details = new ArrayList<>();
         BigDecimal total = BigDecimal.ZERO;
 
         for (CartItem item : items) {
 
-            if(item.getInventory().getStock() < item.getAmount()) {
-                throw new IllegalArgumentException("Not enough stock");
-            }
-
             details.add(OrderDetail.builder()
                     .inventory(item.getInventory())
                     .amount(item.getAmount())
@@ -154,9 +296,6 @@ public class OrderService {
                     .build()
             );
 
-            item.getInventory().setStock(item.getInventory().getStock() - item.getAmount());
-            inventoryRepository.save(item.getInventory());
-
             total = total.add(
                     BigDecimal.valueOf(item.getAmount())
                             .multiply(item.getInventory().getProduct().getPrice())
@@ -173,8 +312,7 @@ public class OrderService {
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
     }
 
-    public ResponseEntity<GeneralResponse<Page<OrderDto>>> getMyOrders(String authorizationHeader, int page) {
-        User user = authService.validateAuthorization(authorizationHeader);
+    public ResponseEntity<GeneralResponse<Page<OrderDto>>> getMyOrders(User user, int page) {
         Pageable pageable = PageRequest.of(page, 5, Sort.by("creationDate").descending());
         Page<Order> userOrders = orderPageableRepository.findAllByUser(user, pageable);
 
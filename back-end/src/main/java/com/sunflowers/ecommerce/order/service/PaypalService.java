@@ -1,10 +1,7 @@
 package com.sunflowers.ecommerce.order.service;
 
-import com.sunflowers.ecommerce.auth.config.JwtAuthenticationFilter;
 import com.sunflowers.ecommerce.auth.entity.User;
-import com.sunflowers.ecommerce.auth.service.JwtService;
-import com.sunflowers.ecommerce.auth.service.UserService;
-import com.sunflowers.ecommerce.email.EmailService;
+import com.sunflowers.ecommerce.cart.service.CartStore;
 import com.sunflowers.ecommerce.email.MailBody;
 import com.sunflowers.ecommerce.order.config.PayPalHttpClient;
 import com.sunflowers.ecommerce.order.data.*;
@@ -22,6 +19,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -29,22 +27,34 @@ public class PaypalService {
 
     private final PayPalHttpClient payPalHttpClient;
     private final OrderService orderService;
-    private final UserService userService;
-    private final JwtService jwtService;
-    private final EmailService emailService;
-
-    public PaypalOrderResponse createOrder(String authToken, GenerateOrderRequest request) throws Exception {
-        Order order = orderService.createOrder(authToken, request);
-        User user = userService.getUserByEmail(jwtService.extractUsername(authToken));
-
-        PaypalOrderResponse orderResponse = payPalHttpClient.createOrder(createOrderRequest(order));
+    private final CartStore cartStore;
+
+    /**
+     * Creates the order and its PayPal counterpart in two short transactions around the PayPal call, so no
+     * database connection or row lock is held while waiting on PayPal.
+     * If PayPal fails, the order is cancelled and its stock released. The user's pending cart changes are written
+     * first, before the order transaction takes its connection.
+     *
+     * @param user    the authenticated user
+     * @param request the order request
+     * @return the PayPal order, including the local order id
+     */
+    public PaypalOrderResponse createOrder(User user, GenerateOrderRequest request) throws Exception {
+        cartStore.flush(user.getId());
+        Order order = orderService.createOrder(user, request);
+
+        PaypalOrderResponse orderResponse;
+        try {
+            orderResponse = payPalHttpClient.createOrder(createOrderRequest(order), order.getId().toString());
+        } catch (Exception e) {
+            orderService.cancelOrder(order.getId());
+            throw e;
+        }
 
         order.setPlatformId(orderResponse.getId());
         order.setPlatformStatus(orderResponse.getStatus());
         order.setPaymentMethod(PaymentMethod.PAYPAL);
 
-        orderService.saveOrder(order);
-
         String orderDetails = "Order ID: " + order.getId() + "\n"
                 + "Order Status: pending payment confirmation" + "\n"
                 + "Order Total: " + order.getTotalPrice() + "\n"
@@ -57,7 +67,7 @@ public class PaypalService {
                 .text("Your order status is PENDING"  + ". Here are the details of your order:\n\n" + orderDetails)
                 .build();
 
-        emailService.sendEmail(mail);
+        orderService.recordPlatformOrder(order, user, mail, "order-created:" + order.getId());
 
         orderResponse.setOrderId(order.getId().toString());
 
@@ -86,55 +96,62 @@ public class PaypalService {
                 .build();
     }
 
-    public OrderStatusResponse captureOrder(String orderId, String authToken) throws Exception {
+    /**
+     * Captures the payment of the order. The PayPal call does not hold the request thread; the new status is
+     * stored once PayPal answers.
+     *
+     * @param orderId the order id
+     * @param user    the authenticated user
+     * @return a future completed with the status of the order
+     */
+    public CompletableFuture<OrderStatusResponse> captureOrder(String orderId, User user) {
         Order order = orderService.getOrderById(orderId);
 
-        String token = JwtAuthenticationFilter.getTokenFromHeader(authToken);
-
-        User user = userService.getUserByEmail(jwtService.extractUsername(token));
-
         if(!order.getUser().getId().equals(user.getId())){
             throw new IllegalArgumentException("Order not related to user");
         }
 
 
-        if (order.getPlatformStatus().equals("CREATED")) {
-            PaypalCaptureResponse captureResponse = payPalHttpClient.captureOrder(order.getPlatformId());
+        if ("CREATED".equals(order.getPlatformStatus())) {
+            if (order.getOrderStatus() != OrderStatus.PENDING || orderService.isHoldExpired(order)) {
+                throw new IllegalArgumentException("The payment window for this order has expired");
+            }
+            return payPalHttpClient.captureOrderAsync(order.getPlatformId())
+                    .thenApply(captureResponse -> applyCapture(order, user, captureResponse));
+        }
 
-            String newPlatformStatus = captureResponse.getStatus();
-            OrderStatus newOrderStatus = mapPaypalStatusToOrderStatus(newPlatformStatus);
+        return CompletableFuture.completedFuture(toStatusResponse(order));
+    }
 
-            order.setOrderStatus(newOrderStatus);
-            order.setPlatformStatus(newPlatformStatus);
+    private OrderStatusResponse applyCapture(Order order, User user, PaypalCaptureResponse captureResponse) {
+        String newPlatformStatus = captureResponse.getStatus();
+        OrderStatus newOrderStatus = mapPaypalStatusToOrderStatus(newPlatformStatus);
 
-            try {
-                orderService.saveOrder(order);
-            } catch (DataIntegrityViolationException e) {
-                throw new RuntimeException("Failed to save order due to invalid status", e);
-            }
+        order.setOrderStatus(newOrderStatus);
+        order.setPlatformStatus(newPlatformStatus);
+
+        String orderDetails = "Order ID: " + order.getId() + "\n"
+                + "Order Status: " + newOrderStatus.name() + "\n"
+                + "Order Total: " + order.getTotalPrice() + "\n"
+                + "Shipping Price: " + order.getShippingPrice() + "\n"
+                + "Payment Method: " + order.getPaymentMethod();
 
-            String orderDetails = "Order ID: " + order.getId() + "\n"
-                    + "Order Status: " + newOrderStatus.name() + "\n"
-                    + "Order Total: " + order.getTotalPrice() + "\n"
-                    + "Shipping Price: " + order.getShippingPrice() + "\n"
-                    + "Payment Method: " + order.getPaymentMethod();
-
-            MailBody mail = MailBody.builder()
-                    .to(user.getEmail())
-                    .subject("Order Payment Status")
-                    .text("Your order status is " + newOrderStatus.name() + ". Here are the details of your order:\n\n" + orderDetails)
-                    .build();
-
-            emailService.sendEmail(mail);
-
-            return OrderStatusResponse.builder()
-                    .status(order.getOrderStatus().name())
-                    .platformStatus(order.getPlatformStatus())
-                    .orderId(order.getId().toString())
-                    .paymentId(order.getPlatformId())
-                    .build();
+        MailBody mail = MailBody.builder()
+                .to(user.getEmail())
+                .subject("Order Payment Status")
+                .text("Your order status is " + newOrderStatus.name() + ". Here are the details of your order:\n\n" + orderDetails)
+                .build();
+
+        try {
+            orderService.confirmCapture(order, mail, "order-status:" + order.getId() + ":" + newOrderStatus.name());
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Failed to save order due to invalid status", e);
         }
 
+        return toStatusResponse(order);
+    }
+
+    private OrderStatusResponse toStatusResponse(Order order) {
         return OrderStatusResponse.builder()
                 .status(order.getOrderStatus().name())
                 .platformStatus(order.getPlatformStatus())
@@ -0,0 +1,29 @@
+package com.sunflowers.ecommerce.product.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the sequence behind the upload order of product images and makes it the default of the column, which
+ * cannot be declared through JPA annotations. Images uploaded before the order was recorded are given one in URL
+ * order, so the first image of their listings stays the one shown before.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductImageOrderInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS product_image_upload_seq");
+        jdbcTemplate.execute("ALTER TABLE product_image ALTER COLUMN upload_order SET DEFAULT nextval('product_image_upload_seq')");
+        jdbcTemplate.update("UPDATE product_image i SET upload_order = o.upload_order " +
+                "FROM (SELECT id, nextval('product_image_upload_seq') AS upload_order " +
+                "FROM (SELECT id FROM product_image WHERE upload_order = 0 ORDER BY url) unordered) o " +
+                "WHERE i.id = o.id");
+    }
+}
@@ -0,0 +1,34 @@
+package com.sunflowers.ecommerce.product.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the Postgres full-text search functions used by the catalog search, so they can be used from Criteria
+ * queries as {@code product_search_matches(name, description, query)} and {@code product_search_rank(name, description, query)}.
+ * The document expression is the one indexed by {@link ProductSearchIndexInitializer}; both must stay identical for
+ * Postgres to use the index.
+ */
+public class ProductSearchFunctions implements FunctionContributor {
+
+    /**
+     * The searchable document of a product: the name, weighted above the description.
+     */
+    static final String DOCUMENT = "(setweight(to_tsvector('simple', coalesce(%s, '')), 'A') || "
+            + "setweight(to_tsvector('simple', coalesce(%s, '')), 'B'))";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicTypeRegistry types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+        String document = DOCUMENT.formatted("?1", "?2");
+
+        functionContributions.getFunctionRegistry().registerPattern("product_search_matches",
+                "(" + document + " @@ to_tsquery('simple', ?3))",
+                types.resolve(StandardBasicTypes.BOOLEAN));
+        functionContributions.getFunctionRegistry().registerPattern("product_search_rank",
+                "ts_rank(" + document + ", to_tsquery('simple', ?3))",
+                types.resolve(StandardBasicTypes.DOUBLE));
+    }
+}
@@ -0,0 +1,24 @@
+package com.sunflowers.ecommerce.product.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the GIN index backing the catalog full-text search, which cannot be declared through JPA annotations.
+ * Postgres keeps the index up to date as products are created or changed.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndexInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_product_search ON product USING gin ("
+                + ProductSearchFunctions.DOCUMENT.formatted("name", "description") + ")");
+    }
+}
@@ -2,12 +2,18 @@ package com.sunflowers.ecommerce.product.controller;
 
 import com.sunflowers.ecommerce.product.entity.Product;
 import com.sunflowers.ecommerce.product.request.CreateProductRequest;
+import com.sunflowers.ecommerce.product.response.ProductImportResponse;
+import com.sunflowers.ecommerce.product.service.ProductImportService;
 import com.sunflowers.ecommerce.product.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 @RestController
 @RequestMapping("/api/v1/admin/product")
 public class ProductAdminController {
@@ -15,6 +21,9 @@ public class ProductAdminController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductImportService productImportService;
+
     /**
      * Creates a new product.
      * This method will take a CreateProductRequest object and return the created product.
@@ -29,6 +38,30 @@ public class ProductAdminController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
 
+    /**
+     * Imports products and their inventories from a CSV file sent as the request body.
+     * The body is read as it arrives; invalid rows are reported and skipped without stopping the import.
+     *
+     * @param body the CSV content, with a header row
+     * @return the import report
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ProductImportResponse> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importCsv(body));
+    }
+
+    /**
+     * Imports products and their inventories from a JSON array sent as the request body.
+     * The body is read as it arrives; invalid rows are reported and skipped without stopping the import.
+     *
+     * @param body the JSON array of products
+     * @return the import report
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductImportResponse> importJson(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importJson(body));
+    }
+
     /**
      * Handles invalid argument exceptions.
      *
@@ -1,17 +1,28 @@
 package com.sunflowers.ecommerce.product.controller;
 
+import com.sunflowers.ecommerce.product.dto.ProductFacets;
+import com.sunflowers.ecommerce.product.dto.ProductSlice;
+import com.sunflowers.ecommerce.product.dto.ProductSummaryDTO;
 import com.sunflowers.ecommerce.product.entity.Banner;
 import com.sunflowers.ecommerce.product.entity.Product;
 import com.sunflowers.ecommerce.product.request.ProductRequest;
 import com.sunflowers.ecommerce.product.service.BannerImageService;
 import com.sunflowers.ecommerce.product.service.ProductService;
+import com.sunflowers.ecommerce.response.CachedResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Controller for handling product-related HTTP requests.
@@ -26,6 +37,9 @@ public class ProductPublicController {
     @Autowired
     private BannerImageService bannerService;
 
+    @Autowired
+    private CachedResponses cachedResponses;
+
     /**
      * Retrieves a paginated list of products based on the specified request parameters.
      *
@@ -36,34 +50,106 @@ public class ProductPublicController {
     @GetMapping("/")
     public ResponseEntity<PagedModel<EntityModel<Product>>> getProducts(@ModelAttribute ProductRequest productRequest,
                                                                         PagedResourcesAssembler<Product> assembler) {
+        if (productRequest.getCursor() != null) {
+            return ResponseEntity.ok(toCursorModel(productService.getProductSlice(productRequest)));
+        }
+
         Page<Product> products = productService.getProducts(productRequest);
         return ResponseEntity.ok(assembler.toModel(products));
     }
 
+    /**
+     * Retrieves a paginated list of product summaries, with only the fields a listing shows
+     * (id, name, price, discount, rating and first image URL), when called with {@code view=summary}.
+     *
+     * @param productRequest the request parameters for filtering products
+     * @param assembler the assembler to convert Page into PagedModel
+     * @return a ResponseEntity containing a PagedModel of product summaries
+     */
+    @GetMapping(value = "/", params = "view=summary")
+    public ResponseEntity<PagedModel<EntityModel<ProductSummaryDTO>>> getProductSummaries(@ModelAttribute ProductRequest productRequest,
+                                                                                          PagedResourcesAssembler<ProductSummaryDTO> assembler) {
+        if (productRequest.getCursor() != null) {
+            return ResponseEntity.ok(toCursorModel(productService.getProductSummarySlice(productRequest)));
+        }
+
+        Page<ProductSummaryDTO> products = productService.getProductSummaries(productRequest);
+        return ResponseEntity.ok(assembler.toModel(products));
+    }
+
+    /**
+     * Builds the response of cursor mode with the same shape as the paged one.
+     * There is no page metadata since no total is computed; the next page is reached through the next link.
+     */
+    private <T> PagedModel<EntityModel<T>> toCursorModel(ProductSlice<T> slice) {
+        List<Link> links = new ArrayList<>();
+        links.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest().toUriString()).withSelfRel());
+        if (slice.nextCursor() != null) {
+            links.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", slice.nextCursor())
+                    .toUriString(), IanaLinkRelations.NEXT));
+        }
+
+        List<EntityModel<T>> content = slice.products().stream()
+                .map(EntityModel::of)
+                .toList();
+        return PagedModel.of(content, null, links);
+    }
+
+    /**
+     * Retrieves the number of products matching the filters for every category, size, color and price range,
+     * in one request.
+     *
+     * @param productRequest the request parameters for filtering products; paging and sorting are ignored
+     * @return a ResponseEntity containing the product counts of every facet value
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacets> getFacets(@ModelAttribute ProductRequest productRequest) {
+        return ResponseEntity.ok(productService.getFacets(productRequest));
+    }
+
     /**
      * Retrieves a product by its ID.
+     * Answers with 304 without loading the product when the client holds its current version.
      *
      * @param id the ID of the product
+     * @param request the current request, carrying the conditional headers
      * @return a ResponseEntity containing the Product entity or a 404 status if not found
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable(name = "id") Long id) {
-        Product product = productService.getProductById(id);
-        if (product != null) {
-            return ResponseEntity.ok(product);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Product> getProductById(@PathVariable(name = "id") Long id, WebRequest request) {
+        return cachedResponses.respond(request, CachedResponses.Resource.PRODUCT, id, () -> {
+            Product product = productService.getProductById(id);
+            if (product != null) {
+                return ResponseEntity.ok(product);
+            } else {
+                return ResponseEntity.notFound().build();
+            }
+        });
     }
 
     /**
      * Retrieves a list of active banners.
+     * Answers with 304 without loading the banners when the client holds their current version.
      *
+     * @param request the current request, carrying the conditional headers
      * @return a ResponseEntity containing an Iterable of Banner entities
      */
     @GetMapping("/banner")
-    public ResponseEntity<Iterable<Banner>> getActiveBanners() {
-        return ResponseEntity.ok(bannerService.getActive());
+    public ResponseEntity<Iterable<Banner>> getActiveBanners(WebRequest request) {
+        return cachedResponses.respond(request, CachedResponses.Resource.BANNERS, null,
+                () -> ResponseEntity.ok(bannerService.getActive()));
+    }
+
+    /**
+     * Handles invalid request parameters, such as a malformed cursor.
+     *
+     * @param e the exception that was thrown
+     * @return a ResponseEntity containing the exception message and a 400 status code
+     */
+    @ExceptionHandler
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
     }
 
     /**
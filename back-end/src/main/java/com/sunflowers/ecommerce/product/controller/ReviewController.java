@@ -1,11 +1,15 @@
 package com.sunflowers.ecommerce.product.controller;
 
+import com.sunflowers.ecommerce.auth.config.CurrentUser;
+import com.sunflowers.ecommerce.auth.entity.User;
 import com.sunflowers.ecommerce.product.entity.Review;
 import com.sunflowers.ecommerce.product.request.CreateReviewRequest;
 import com.sunflowers.ecommerce.product.service.ReviewService;
+import com.sunflowers.ecommerce.response.CachedResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Controller for handling review-related HTTP requests.
@@ -17,29 +21,35 @@ public class ReviewController {
     @Autowired
     private ReviewService productService;
 
+    @Autowired
+    private CachedResponses cachedResponses;
+
     /**
      * Retrieves reviews for a specific product by its ID.
+     * Answers with 304 without loading the reviews when the client holds their current version.
      *
      * @param id the ID of the product
+     * @param request the current request, carrying the conditional headers
      * @return a ResponseEntity containing an Iterable of Review entities
      */
     @GetMapping("/product/{id}")
-    public ResponseEntity<Iterable<Review>> getReviewsByProductId(@PathVariable(name = "id") Long id) {
-        return ResponseEntity.ok(productService.getReviewsByProductId(id));
+    public ResponseEntity<Iterable<Review>> getReviewsByProductId(@PathVariable(name = "id") Long id, WebRequest request) {
+        return cachedResponses.respond(request, CachedResponses.Resource.REVIEWS, id,
+                () -> ResponseEntity.ok(productService.getReviewsByProductId(id)));
     }
 
     /**
      * Creates a new review for a product.
      *
      * @param request the request containing the review details
-     * @param authorizationHeader the authorization header containing the user's credentials
+     * @param user the authenticated user writing the review
      * @return a ResponseEntity containing the created Review entity
      */
     @PostMapping("/create/")
     public ResponseEntity<Review> createReview(
             @RequestBody CreateReviewRequest request,
-            @RequestHeader(name = "Authorization") String authorizationHeader) {
-        return ResponseEntity.ok(productService.createReview(authorizationHeader, request));
+            @CurrentUser User user) {
+        return ResponseEntity.ok(productService.createReview(user, request));
     }
 
     /**
@@ -0,0 +1,61 @@
+package com.sunflowers.ecommerce.product.dto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Position of a catalog listing in cursor mode: the sort of the listing and the sort value and id of the last
+ * product returned. Clients receive it as an opaque URL-safe token.
+ *
+ * @param sortBy    the sorted attribute
+ * @param direction the sort direction
+ * @param value     the sort value of the last product
+ * @param id        the id of the last product, used as the tiebreaker
+ */
+public record CatalogCursor(String sortBy, String direction, Object value, Integer id) {
+
+    /**
+     * Attributes that can be used in cursor mode, with the parser of their encoded value. Missing ratings are
+     * encoded as "null".
+     */
+    public enum Key {
+        name(value -> value),
+        price(BigDecimal::new),
+        creationDate(value -> new Timestamp(Long.parseLong(value))),
+        rating(value -> "null".equals(value) ? null : Double.valueOf(value));
+
+        private final Function<String, Object> parser;
+
+        Key(Function<String, Object> parser) {
+            this.parser = parser;
+        }
+
+        public static Key of(String sortBy) {
+            for (Key key : values()) {
+                if (key.name().equals(sortBy)) {
+                    return key;
+                }
+            }
+            throw new IllegalArgumentException("Cursor pagination is not supported when sorting by " + sortBy);
+        }
+    }
+
+    public String encode() {
+        String encodedValue = value instanceof Timestamp timestamp ? String.valueOf(timestamp.getTime()) : String.valueOf(value);
+        String raw = sortBy + "\n" + direction + "\n" + id + "\n" + encodedValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CatalogCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 4);
+            Key key = Key.of(parts[0]);
+            return new CatalogCursor(parts[0], parts[1], key.parser.apply(parts[3]), Integer.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.sunflowers.ecommerce.product.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The number of catalog products matching each facet value.
+ * Sizes, colors and prices are counted with every filter of the request except their own, so selecting a size still
+ * shows how many products the other sizes would add; categories are counted with all filters since every selected
+ * category must match.
+ *
+ * @param categories the product count of each category
+ * @param sizes      the product count of each size
+ * @param colors     the product count of each color
+ * @param prices     the product count of each price range
+ */
+public record ProductFacets(List<FacetCount> categories, List<FacetCount> sizes, List<FacetCount> colors,
+                            List<PriceBucket> prices) {
+
+    /**
+     * @param value the facet value
+     * @param count the number of matching products having it
+     */
+    public record FacetCount(String value, long count) {
+    }
+
+    /**
+     * @param from  the lowest price of the range, inclusive
+     * @param to    the highest price of the range, exclusive, or null for the last range
+     * @param count the number of matching products in the range
+     */
+    public record PriceBucket(BigDecimal from, BigDecimal to, long count) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.sunflowers.ecommerce.product.dto;
+
+import java.util.List;
+
+/**
+ * A page of the catalog in cursor mode.
+ *
+ * @param products   the products of the page, as entities or listing summaries
+ * @param nextCursor the token of the next page, or null if this is the last one
+ */
+public record ProductSlice<T>(List<T> products, String nextCursor) {
+}
@@ -0,0 +1,20 @@
+package com.sunflowers.ecommerce.product.dto;
+
+import org.springframework.hateoas.server.core.Relation;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only view of a product with only the columns shown in catalog listings.
+ * It is embedded under the same relation as the full product, so listing responses keep their shape.
+ *
+ * @param id       the product ID
+ * @param name     the product name
+ * @param price    the product price
+ * @param discount the product discount, or null
+ * @param rating   the average rating, or null if the product has no reviews
+ * @param imageUrl the URL of the first product image, or null
+ */
+@Relation(collectionRelation = "productList")
+public record ProductSummaryDTO(Integer id, String name, BigDecimal price, BigDecimal discount, Double rating, String imageUrl) {
+}
@@ -6,7 +6,7 @@ import com.sunflowers.ecommerce.inventory.entity.Inventory;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
-import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
@@ -20,11 +20,22 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "product")
+@NamedEntityGraph(
+        name = "Product.detail",
+        attributeNodes = @NamedAttributeNode(value = "inventories", subgraph = "inventory"),
+        subgraphs = @NamedSubgraph(name = "inventory", attributeNodes = @NamedAttributeNode("color"))
+)
+@Table(name = "product", indexes = {
+        @Index(name = "idx_product_rating", columnList = "rating")
+})
 public class Product {
 
+    /**
+     * Allocated from the existing product_seq sequence 50 values at a time, so batched inserts need no round-trip per id.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Integer id;
 
     @JsonIgnore
@@ -83,8 +94,23 @@ public class Product {
     private List<ClothingSet> clothingSets;
 
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("uploadOrder")
     private List<ProductImage> productImages;
 
-    @Formula("(select avg(r.rating) from Review r where r.product_id = id)")
+    /**
+     * Average rating, kept up to date together with {@link #ratingSum} and {@link #ratingCount} when a review is
+     * created. Null while the product has no reviews.
+     */
+    @Column(name = "rating")
     private Double rating;
+
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "rating_count", nullable = false)
+    private int ratingCount;
 }
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.UUID;
 
@@ -24,6 +25,15 @@ public class ProductImage {
     @Column(name = "url")
     private String url;
 
+    /**
+     * Taken from product_image_upload_seq by the database when the image is uploaded, so a product's images are shown
+     * in the order they were uploaded. Never written through JPA.
+     */
+    @JsonIgnore
+    @Column(name = "upload_order", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long uploadOrder;
+
     @JsonIgnore
     @ManyToOne
     @JoinColumn(name = "product_id")
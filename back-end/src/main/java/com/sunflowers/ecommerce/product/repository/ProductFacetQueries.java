@@ -0,0 +1,49 @@
+package com.sunflowers.ecommerce.product.repository;
+
+import com.sunflowers.ecommerce.product.dto.ProductFacets.FacetCount;
+import com.sunflowers.ecommerce.product.dto.ProductFacets.PriceBucket;
+import com.sunflowers.ecommerce.product.entity.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Aggregate queries counting the products matching a specification per facet value, each in a single GROUP BY
+ * query instead of one count per value.
+ */
+public interface ProductFacetQueries {
+
+    /**
+     * Counts the products matching the specification in each category.
+     *
+     * @param spec the filter
+     * @return the count of each category having at least one matching product, ordered by name
+     */
+    List<FacetCount> countByCategory(Specification<Product> spec);
+
+    /**
+     * Counts the products matching the specification having an inventory of each size.
+     *
+     * @param spec the filter
+     * @return the count of each size having at least one matching product, ordered by size
+     */
+    List<FacetCount> countBySize(Specification<Product> spec);
+
+    /**
+     * Counts the products matching the specification having an inventory of each color.
+     *
+     * @param spec the filter
+     * @return the count of each color having at least one matching product, ordered by name
+     */
+    List<FacetCount> countByColor(Specification<Product> spec);
+
+    /**
+     * Counts the products matching the specification in each price range, with a single scan of the matching rows.
+     *
+     * @param spec   the filter
+     * @param bounds the ascending bounds between the ranges; the first range starts at zero and the last is open
+     * @return the count of every range, empty ones included, in ascending order
+     */
+    List<PriceBucket> countByPriceBucket(Specification<Product> spec, List<BigDecimal> bounds);
+}
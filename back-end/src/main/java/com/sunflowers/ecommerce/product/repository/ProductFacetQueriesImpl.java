@@ -0,0 +1,109 @@
+package com.sunflowers.ecommerce.product.repository;
+
+import com.sunflowers.ecommerce.product.dto.ProductFacets.FacetCount;
+import com.sunflowers.ecommerce.product.dto.ProductFacets.PriceBucket;
+import com.sunflowers.ecommerce.product.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Criteria implementation of {@link ProductFacetQueries}.
+ */
+public class ProductFacetQueriesImpl implements ProductFacetQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<FacetCount> countByCategory(Specification<Product> spec) {
+        return countBy(spec, root -> root.join("categories").get("name"));
+    }
+
+    @Override
+    public List<FacetCount> countBySize(Specification<Product> spec) {
+        return countBy(spec, root -> root.join("inventories").get("size"));
+    }
+
+    @Override
+    public List<FacetCount> countByColor(Specification<Product> spec) {
+        return countBy(spec, root -> root.join("inventories").get("color").get("name"));
+    }
+
+    /**
+     * Groups the matching products by the value reached through a join.
+     * Products are counted distinctly since a product has one inventory per size and color pair.
+     */
+    private List<FacetCount> countBy(Specification<Product> spec, Function<Root<Product>, Path<String>> facet) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Path<String> value = facet.apply(root);
+        where(spec, root, query, cb);
+
+        query.multiselect(value, cb.countDistinct(root))
+                .groupBy(value)
+                .orderBy(cb.asc(value));
+
+        return entityManager.createQuery(query)
+                .getResultList()
+                .stream()
+                .map(tuple -> new FacetCount(tuple.get(0, String.class), tuple.get(1, Long.class)))
+                .toList();
+    }
+
+    @Override
+    public List<PriceBucket> countByPriceBucket(Specification<Product> spec, List<BigDecimal> bounds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Path<BigDecimal> price = root.get("price");
+        where(spec, root, query, cb);
+
+        List<BigDecimal> froms = new ArrayList<>();
+        froms.add(BigDecimal.ZERO);
+        froms.addAll(bounds);
+
+        List<Selection<?>> counts = new ArrayList<>();
+        for (int i = 0; i < froms.size(); i++) {
+            Predicate inRange = i < bounds.size()
+                    ? cb.and(cb.greaterThanOrEqualTo(price, froms.get(i)), cb.lessThan(price, bounds.get(i)))
+                    : cb.greaterThanOrEqualTo(price, froms.get(i));
+            Expression<Long> hit = cb.<Long>selectCase().when(inRange, 1L).otherwise(0L);
+            counts.add(cb.coalesce(cb.sum(hit), 0L));
+        }
+        query.multiselect(counts);
+
+        Tuple tuple = entityManager.createQuery(query).getSingleResult();
+        List<PriceBucket> buckets = new ArrayList<>();
+        for (int i = 0; i < froms.size(); i++) {
+            BigDecimal to = i < bounds.size() ? bounds.get(i) : null;
+            buckets.add(new PriceBucket(froms.get(i), to, ((Number) tuple.get(i)).longValue()));
+        }
+        return buckets;
+    }
+
+    /**
+     * Applies the specification, dropping any order it sets since the rows are aggregated.
+     */
+    private static void where(Specification<Product> spec, Root<Product> root, CriteriaQuery<Tuple> query, CriteriaBuilder cb) {
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(List.of());
+    }
+}
@@ -0,0 +1,46 @@
+package com.sunflowers.ecommerce.product.repository;
+
+import com.sunflowers.ecommerce.product.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Queries returning only the IDs of the products matching a specification, so a listing page can be resolved
+ * without loading or joining full product rows.
+ */
+public interface ProductIdQueries {
+
+    /**
+     * Retrieves the IDs of one page of products matching the specification, ordered by relevance when a search is
+     * ranked, then by the page's sort and then by id.
+     * The total is computed by a separate count query, skipped when the page already tells the total.
+     *
+     * @param spec        the filter, expected to use only EXISTS subqueries so rows are never multiplied
+     * @param rankedQuery the full-text query whose rank orders the products first, best match first, or null
+     * @param pageable    the page to retrieve
+     * @return a page of product IDs
+     */
+    Page<Integer> findIds(Specification<Product> spec, String rankedQuery, Pageable pageable);
+
+    /**
+     * Retrieves the IDs and sort values of the products that follow a position in the listing (keyset pagination).
+     * The position is found through the sort column and id, so the cost does not grow with the depth of the page,
+     * and no count query is run.
+     *
+     * @param spec      the filter
+     * @param order     the sort of the listing; products with equal values are ordered by ascending id, and missing
+     *                  values come last in ascending order and first in descending order, as in Postgres
+     * @param lastValue the sort value of the last product already returned, which may be missing
+     * @param lastId    the id of the last product already returned, or null for the first page
+     * @param limit     the maximum number of rows to return
+     * @return the IDs and sort values of the following products
+     */
+    List<KeysetRow> findIdsAfter(Specification<Product> spec, Sort.Order order, Object lastValue, Integer lastId, int limit);
+
+    record KeysetRow(Integer id, Object sortValue) {
+    }
+}
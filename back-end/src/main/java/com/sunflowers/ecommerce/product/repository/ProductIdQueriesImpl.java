@@ -0,0 +1,119 @@
+package com.sunflowers.ecommerce.product.repository;
+
+import com.sunflowers.ecommerce.product.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria implementation of {@link ProductIdQueries}.
+ */
+public class ProductIdQueriesImpl implements ProductIdQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Integer> findIds(Specification<Product> spec, String rankedQuery, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Integer> query = cb.createQuery(Integer.class);
+        Root<Product> root = query.from(Product.class);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        List<Order> orders = new ArrayList<>();
+        if (rankedQuery != null) {
+            orders.add(cb.desc(cb.function("product_search_rank", Double.class,
+                    root.get("name"), root.get("description"), cb.literal(rankedQuery))));
+        }
+        orders.addAll(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        orders.add(cb.asc(root.get("id")));
+        query.select(root.get("id")).orderBy(orders);
+
+        List<Integer> ids = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return PageableExecutionUtils.getPage(ids, pageable, () -> count(spec));
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<KeysetRow> findIdsAfter(Specification<Product> spec, Sort.Order order, Object lastValue, Integer lastId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Path<Comparable> sortPath = root.get(order.getProperty());
+        Path<Integer> idPath = root.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        if (lastId != null) {
+            predicates.add(after(cb, sortPath, idPath, order.isAscending(), (Comparable) lastValue, lastId));
+        }
+
+        query.multiselect(idPath, sortPath)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(order.isAscending() ? cb.asc(sortPath) : cb.desc(sortPath), cb.asc(idPath));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(tuple -> new KeysetRow(tuple.get(0, Integer.class), tuple.get(1)))
+                .toList();
+    }
+
+    /**
+     * Matches the products after the given position: a greater sort value in ascending order or a smaller one in
+     * descending order, or the same value and a greater id. Missing values follow every value in ascending order
+     * and precede them in descending order.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CriteriaBuilder cb, Path<Comparable> sortPath, Path<Integer> idPath,
+                                   boolean ascending, Comparable lastValue, Integer lastId) {
+        if (lastValue == null) {
+            Predicate nextMissing = cb.and(cb.isNull(sortPath), cb.greaterThan(idPath, lastId));
+            return ascending ? nextMissing : cb.or(cb.isNotNull(sortPath), nextMissing);
+        }
+
+        Predicate sameValue = cb.and(cb.equal(sortPath, lastValue), cb.greaterThan(idPath, lastId));
+        if (ascending) {
+            return cb.or(cb.greaterThan(sortPath, lastValue), sameValue, cb.isNull(sortPath));
+        }
+        return cb.or(cb.lessThan(sortPath, lastValue), sameValue);
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(cb.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -1,10 +1,15 @@
 package com.sunflowers.ecommerce.product.repository;
 
 import com.sunflowers.ecommerce.product.entity.ProductImage;
+import com.sunflowers.ecommerce.product.entity.Product;
 import lombok.NonNull;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,4 +27,16 @@ public interface ProductImageRepository extends CrudRepository<ProductImage, UUI
      */
     @NonNull
     Optional<ProductImage> findById(@NonNull UUID uuid);
+
+    /**
+     * Assigns the images to a product with a single update.
+     * Pending inserts are flushed first, so the product may have been saved in the same transaction.
+     *
+     * @param ids     the UUIDs of the images
+     * @param product the product owning the images
+     * @return the number of updated images
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ProductImage i SET i.product = :product WHERE i.id IN :ids")
+    int assignToProduct(@Param("ids") Collection<UUID> ids, @Param("product") Product product);
 }
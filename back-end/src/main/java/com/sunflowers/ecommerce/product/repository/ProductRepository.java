@@ -1,17 +1,77 @@
 package com.sunflowers.ecommerce.product.repository;
 
+import com.sunflowers.ecommerce.product.dto.ProductSummaryDTO;
 import com.sunflowers.ecommerce.product.entity.Product;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository interface for performing CRUD operations on Product entities.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, String>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, String>, JpaSpecificationExecutor<Product>, ProductIdQueries,
+        ProductFacetQueries {
 
+    @EntityGraph("Product.detail")
     Optional<Product> findById(Long id);
+
+    /**
+     * Loads the products with their inventories and colors in one query; images are batch-fetched.
+     */
+    @EntityGraph("Product.detail")
+    List<Product> findAllByIdIn(Collection<Integer> ids);
+
+    /**
+     * Loads the products with the given IDs in one query, without their associations.
+     */
+    List<Product> findByIdIn(Collection<Integer> ids);
+
+    /**
+     * Reads the listing columns of the products with the given IDs, without loading the entities or their associations.
+     * The image is the first one uploaded, as in {@link com.sunflowers.ecommerce.product.entity.Product#getProductImages()}.
+     */
+    @Query("SELECT new com.sunflowers.ecommerce.product.dto.ProductSummaryDTO(p.id, p.name, p.price, p.discount, p.rating, " +
+            "(SELECT i.url FROM ProductImage i WHERE i.product = p ORDER BY i.uploadOrder LIMIT 1)) FROM Product p WHERE p.id IN :ids")
+    List<ProductSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Adds a rating to the materialized rating of a product with a single atomic update, so concurrent reviews never
+     * overwrite each other.
+     *
+     * @param id     the ID of the product
+     * @param rating the rating to add
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.ratingSum = p.ratingSum + :rating, p.ratingCount = p.ratingCount + 1, " +
+            "p.rating = (p.ratingSum + :rating) * 1.0 / (p.ratingCount + 1) WHERE p.id = :id")
+    void addRating(@Param("id") Integer id, @Param("rating") int rating);
+
+    /**
+     * Recomputes the materialized rating of every product from its reviews.
+     *
+     * @return the number of updated products
+     */
+    @Modifying
+    @Query(value = "UPDATE product p SET rating_sum = COALESCE(r.total, 0), rating_count = COALESCE(r.reviews, 0), " +
+            "rating = r.total::float8 / NULLIF(r.reviews, 0) " +
+            "FROM product p2 LEFT JOIN (SELECT product_id, SUM(rating) AS total, COUNT(*) AS reviews FROM review GROUP BY product_id) r " +
+            "ON r.product_id = p2.id WHERE p.id = p2.id", nativeQuery = true)
+    int rebuildRatings();
+
+    /**
+     * Tells whether the materialized ratings are out of sync with the reviews, e.g. for data created before they existed.
+     *
+     * @return true if the number of reviews differs from the sum of the materialized review counts
+     */
+    @Query(value = "SELECT (SELECT COUNT(*) FROM review) <> (SELECT COALESCE(SUM(rating_count), 0) FROM product)", nativeQuery = true)
+    boolean ratingsOutOfSync();
 }
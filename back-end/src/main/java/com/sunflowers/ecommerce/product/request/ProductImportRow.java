@@ -0,0 +1,32 @@
+package com.sunflowers.ecommerce.product.request;
+
+import com.sunflowers.ecommerce.inventory.request.CreateInventoryRequest;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One product of a bulk import, with the inventories to create for it.
+ * Imported products have no images; they are added afterwards like for any product.
+ */
+@Data
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportRow {
+
+    private String name;
+    private String description;
+    private BigDecimal price;
+    /**
+     * The names of exactly 3 existing categories.
+     */
+    private List<String> categories;
+    /**
+     * The size, existing color and stock of each inventory; the product and id are ignored.
+     */
+    private List<CreateInventoryRequest> inventories;
+}
@@ -14,6 +14,9 @@ import lombok.*;
 public class ProductRequest {
     private int page = 0;
     private int pageSize = 10;
+    /**
+     * The attribute to sort by, or "relevance" to order the results of a name search by how well they match.
+     */
     private String sortBy = "name";
     private String name;
     private String direction = "asc";
@@ -22,4 +25,8 @@ public class ProductRequest {
     private BigDecimal maxPrice;
     private List<String> sizes;
     private List<String> colors;
+    /**
+     * Enables cursor pagination when present: empty for the first page, then the token returned in the next link.
+     */
+    private String cursor;
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.sunflowers.ecommerce.product.response;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Data
+@Builder
+@Getter
+@Setter
+public class ProductImportResponse {
+    long rows;
+    long imported;
+    long failed;
+    /**
+     * True if the file could not be read to the end; the rows before the error are still imported.
+     */
+    boolean aborted;
+    /**
+     * The first errors, up to {@code product.import.max-reported-errors}.
+     */
+    List<RowError> errors;
+    long durationMillis;
+    double rowsPerSecond;
+
+    /**
+     * @param row     the number of the row in the file, starting at 1 for the first product
+     * @param message the reason the row was not imported
+     */
+    public record RowError(long row, String message) {
+    }
+}
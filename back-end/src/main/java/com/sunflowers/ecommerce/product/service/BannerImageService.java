@@ -2,6 +2,7 @@ package com.sunflowers.ecommerce.product.service;
 
 import com.sunflowers.ecommerce.product.entity.Banner;
 import com.sunflowers.ecommerce.product.repository.BannerRepository;
+import com.sunflowers.ecommerce.response.CachedResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -19,6 +20,9 @@ public class BannerImageService {
     @Autowired
     private ImageService imageService;
 
+    @Autowired
+    private CachedResponses cachedResponses;
+
     /**
      * Uploads a banner image.
      *
@@ -34,6 +38,7 @@ public class BannerImageService {
         String fileName = image.getId() + "-" + file.getOriginalFilename();
         image.setImageUrl(imageService.uploadImage(file, ImageService.ImageType.BANNER, fileName));
 
+        cachedResponses.invalidate(CachedResponses.Resource.BANNERS);
         return bannerImageRepository.save(image);
     }
 
@@ -0,0 +1,405 @@
+package com.sunflowers.ecommerce.product.service;
+
+import com.sunflowers.ecommerce.product.request.ProductRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory copy of the catalog columns used to filter, sort and page product listings, so a listing page is
+ * resolved without querying the database; only the products of the page are then loaded.
+ * Enabled with {@code catalog.read-model.enabled=true}.
+ * <p>
+ * Products are stored in slots of primitive arrays, with a {@link BitSet} of slots per category, size and color.
+ * The model is immutable once published: writes build a patched copy and swap it in, so readers never lock.
+ * Changed products are reloaded when a {@link ProductChangedEvent} commits, and a periodic check against the
+ * database reloads everything when writes were missed, e.g. when made by another node.
+ * <p>
+ * Name searches, and sorts other than name, price, creation date and rating, are not supported and fall back to
+ * the database. Names are ordered by their rank in the database, so listings sorted by name follow its collation.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "catalog.read-model.enabled", havingValue = "true")
+public class CatalogReadModel {
+
+    private static final String PRODUCTS = "SELECT id, name, price, rating, rating_count, creation_date, last_update, deleted FROM product";
+    private static final String CATEGORIES = "SELECT product_id, category_id FROM product_category";
+    private static final String INVENTORIES = "SELECT product_id, size, color_name FROM inventory";
+    private static final String NAME_RANKS = "SELECT id, rank() OVER (ORDER BY name) AS name_rank FROM product";
+    private static final String FINGERPRINT = "SELECT (SELECT COUNT(*) FROM product) AS products, " +
+            "(SELECT COUNT(*) FROM product WHERE deleted IS NULL) AS live, " +
+            "(SELECT COUNT(*) FROM product_category) AS categories, " +
+            "(SELECT COUNT(*) FROM inventory) AS inventories, " +
+            "(SELECT COALESCE(SUM(rating_count), 0) FROM product) AS ratings, " +
+            "(SELECT MAX(last_update) FROM product) AS last_update";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot;
+
+    public CatalogReadModel(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Retrieves the IDs of one page of live products matching the filters of the request, ordered like the
+     * database would order them: by the sort of the page, then by id.
+     *
+     * @param request  the request containing the filters; the name search is not supported
+     * @param pageable the page to retrieve
+     * @return the page of product IDs, or empty if the model is not loaded yet or the sort is not supported
+     */
+    public Optional<Page<Integer>> findIds(ProductRequest request, Pageable pageable) {
+        Snapshot current = snapshot;
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (current == null || orders.size() != 1 || !Snapshot.SORTS.contains(orders.get(0).getProperty())) {
+            return Optional.empty();
+        }
+
+        BitSet matches = current.filter(request);
+        int[] order = current.order(orders.get(0));
+        List<Integer> ids = new ArrayList<>(pageable.getPageSize());
+        long skip = pageable.getOffset();
+        for (int i = 0; i < order.length && ids.size() < pageable.getPageSize(); i++) {
+            int slot = order[i];
+            if (matches.get(slot) && skip-- <= 0) {
+                ids.add(current.ids[slot]);
+            }
+        }
+
+        return Optional.of(new PageImpl<>(ids, pageable, matches.cardinality()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (writeLock) {
+            long start = System.currentTimeMillis();
+            Snapshot loaded = new Snapshot(1024);
+            read(loaded, "", new MapSqlParameterSource());
+            readNameRanks(loaded);
+            snapshot = loaded;
+            log.info("Loaded {} products in the catalog read model in {} ms", loaded.size, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Reloads the changed products once their transaction has committed.
+     */
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (writeLock) {
+            if (snapshot == null || event.productIds().isEmpty()) {
+                return;
+            }
+
+            Snapshot patched = snapshot.copy();
+            Map<Integer, String> names = new HashMap<>();
+            for (Integer id : event.productIds()) {
+                Integer slot = patched.slots.get(id);
+                if (slot != null) {
+                    names.put(id, patched.names[slot]);
+                    patched.clear(slot);
+                }
+            }
+            read(patched, " WHERE %s IN (:ids)", new MapSqlParameterSource("ids", new HashSet<>(event.productIds())));
+            // A new or renamed product moves the rank of others, which only the database can order
+            boolean renamed = event.productIds().stream().anyMatch(id -> {
+                Integer slot = patched.slots.get(id);
+                return slot != null && (!names.containsKey(id) || !Objects.equals(names.get(id), patched.names[slot]));
+            });
+            if (renamed) {
+                readNameRanks(patched);
+            }
+            snapshot = patched;
+        }
+    }
+
+    /**
+     * Compares the counts and latest update of the model with the database and reloads it when they differ.
+     */
+    @Scheduled(fixedDelayString = "${catalog.read-model.check-interval:PT5M}", initialDelayString = "${catalog.read-model.check-interval:PT5M}")
+    public void checkConsistency() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+
+        boolean consistent = jdbcTemplate.query(FINGERPRINT, rs -> {
+            rs.next();
+            Timestamp lastUpdate = rs.getTimestamp("last_update");
+            return rs.getLong("products") == current.size
+                    && rs.getLong("live") == current.live.cardinality()
+                    && rs.getLong("categories") == Arrays.stream(current.categoryCounts, 0, current.size).asLongStream().sum()
+                    && rs.getLong("inventories") == Arrays.stream(current.inventoryCounts, 0, current.size).asLongStream().sum()
+                    && rs.getLong("ratings") == Arrays.stream(current.ratingCounts, 0, current.size).asLongStream().sum()
+                    && (lastUpdate == null ? 0 : lastUpdate.getTime()) == current.maxLastUpdate();
+        });
+        if (!consistent) {
+            log.warn("The catalog read model is out of sync with the database, reloading it");
+            load();
+        }
+    }
+
+    /**
+     * Reads the products, categories and inventories into the snapshot, restricted by the condition on the product
+     * id column when one is given.
+     */
+    private void read(Snapshot target, String condition, MapSqlParameterSource params) {
+        jdbcTemplate.query(PRODUCTS + condition.formatted("id"), params, rs -> {
+            int slot = target.slotOf(rs.getInt("id"));
+            target.names[slot] = rs.getString("name");
+            target.prices[slot] = rs.getBigDecimal("price").movePointRight(2).longValue();
+            double rating = rs.getDouble("rating");
+            target.ratings[slot] = rs.wasNull() ? Double.NaN : rating;
+            target.ratingCounts[slot] = rs.getInt("rating_count");
+            target.creationDates[slot] = rs.getTimestamp("creation_date").getTime();
+            target.lastUpdates[slot] = rs.getTimestamp("last_update").getTime();
+            target.live.set(slot, rs.getTimestamp("deleted") == null);
+        });
+        jdbcTemplate.query(CATEGORIES + condition.formatted("product_id"), params, rs -> {
+            Integer slot = target.slots.get(rs.getInt("product_id"));
+            if (slot != null) {
+                target.categories.computeIfAbsent(rs.getString("category_id"), name -> new BitSet()).set(slot);
+                target.categoryCounts[slot]++;
+            }
+        });
+        jdbcTemplate.query(INVENTORIES + condition.formatted("product_id"), params, rs -> {
+            Integer slot = target.slots.get(rs.getInt("product_id"));
+            if (slot != null) {
+                target.sizes.computeIfAbsent(rs.getString("size"), size -> new BitSet()).set(slot);
+                target.colors.computeIfAbsent(rs.getString("color_name"), color -> new BitSet()).set(slot);
+                target.inventoryCounts[slot]++;
+            }
+        });
+    }
+
+    /**
+     * Reads the rank of every product name in the order of the database collation; equal names share a rank.
+     */
+    private void readNameRanks(Snapshot target) {
+        jdbcTemplate.query(NAME_RANKS, rs -> {
+            Integer slot = target.slots.get(rs.getInt("id"));
+            if (slot != null) {
+                target.nameRanks[slot] = rs.getInt("name_rank");
+            }
+        });
+    }
+
+    /**
+     * The products of the catalog, each in a slot of the arrays; prices are stored in cents and missing ratings as NaN.
+     * The sorted orders of the slots are computed on first use.
+     */
+    private static final class Snapshot {
+
+        static final List<String> SORTS = List.of("name", "price", "creationDate", "rating");
+
+        int size;
+        int[] ids;
+        String[] names;
+        int[] nameRanks;
+        long[] prices;
+        double[] ratings;
+        int[] ratingCounts;
+        long[] creationDates;
+        long[] lastUpdates;
+        int[] categoryCounts;
+        int[] inventoryCounts;
+        BitSet live = new BitSet();
+        Map<Integer, Integer> slots = new HashMap<>();
+        Map<String, BitSet> categories = new HashMap<>();
+        Map<String, BitSet> sizes = new HashMap<>();
+        Map<String, BitSet> colors = new HashMap<>();
+        final Map<Sort.Order, int[]> orders = new ConcurrentHashMap<>();
+
+        Snapshot(int capacity) {
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            ids = new int[capacity];
+            names = new String[capacity];
+            nameRanks = new int[capacity];
+            prices = new long[capacity];
+            ratings = new double[capacity];
+            ratingCounts = new int[capacity];
+            creationDates = new long[capacity];
+            lastUpdates = new long[capacity];
+            categoryCounts = new int[capacity];
+            inventoryCounts = new int[capacity];
+        }
+
+        Snapshot copy() {
+            Snapshot copy = new Snapshot(0);
+            copy.size = size;
+            copy.ids = ids.clone();
+            copy.names = names.clone();
+            copy.nameRanks = nameRanks.clone();
+            copy.prices = prices.clone();
+            copy.ratings = ratings.clone();
+            copy.ratingCounts = ratingCounts.clone();
+            copy.creationDates = creationDates.clone();
+            copy.lastUpdates = lastUpdates.clone();
+            copy.categoryCounts = categoryCounts.clone();
+            copy.inventoryCounts = inventoryCounts.clone();
+            copy.live = (BitSet) live.clone();
+            copy.slots = new HashMap<>(slots);
+            copy.categories = copyIndex(categories);
+            copy.sizes = copyIndex(sizes);
+            copy.colors = copyIndex(colors);
+            return copy;
+        }
+
+        private static Map<String, BitSet> copyIndex(Map<String, BitSet> index) {
+            Map<String, BitSet> copy = new HashMap<>();
+            index.forEach((value, bits) -> copy.put(value, (BitSet) bits.clone()));
+            return copy;
+        }
+
+        /**
+         * Returns the slot of the product, appending one when the product is new.
+         */
+        int slotOf(int id) {
+            Integer slot = slots.get(id);
+            if (slot != null) {
+                return slot;
+            }
+
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size] = id;
+            slots.put(id, size);
+            return size++;
+        }
+
+        private void grow() {
+            int capacity = Math.max(16, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            nameRanks = Arrays.copyOf(nameRanks, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            ratingCounts = Arrays.copyOf(ratingCounts, capacity);
+            creationDates = Arrays.copyOf(creationDates, capacity);
+            lastUpdates = Arrays.copyOf(lastUpdates, capacity);
+            categoryCounts = Arrays.copyOf(categoryCounts, capacity);
+            inventoryCounts = Arrays.copyOf(inventoryCounts, capacity);
+        }
+
+        /**
+         * Removes the product of the slot from every index before it is read again.
+         * The product is left out of listings until it is found in the database.
+         */
+        void clear(int slot) {
+            live.clear(slot);
+            categories.values().forEach(bits -> bits.clear(slot));
+            sizes.values().forEach(bits -> bits.clear(slot));
+            colors.values().forEach(bits -> bits.clear(slot));
+            ratingCounts[slot] = 0;
+            categoryCounts[slot] = 0;
+            inventoryCounts[slot] = 0;
+        }
+
+        long maxLastUpdate() {
+            return Arrays.stream(lastUpdates, 0, size).max().orElse(0);
+        }
+
+        /**
+         * Returns the slots of the live products matching the filters of the request: every category, any of the
+         * sizes, any of the colors and the price range.
+         */
+        BitSet filter(ProductRequest request) {
+            BitSet matches = (BitSet) live.clone();
+
+            if (request.getCategories() != null) {
+                for (String category : request.getCategories()) {
+                    matches.and(categories.getOrDefault(category, new BitSet()));
+                }
+            }
+            if (request.getSizes() != null && !request.getSizes().isEmpty()) {
+                matches.and(union(sizes, request.getSizes()));
+            }
+            if (request.getColors() != null && !request.getColors().isEmpty()) {
+                matches.and(union(colors, request.getColors()));
+            }
+
+            if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+                long min = request.getMinPrice() == null ? Long.MIN_VALUE : toCents(request.getMinPrice(), RoundingMode.CEILING);
+                long max = request.getMaxPrice() == null ? Long.MAX_VALUE : toCents(request.getMaxPrice(), RoundingMode.FLOOR);
+                for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                    if (prices[slot] < min || prices[slot] > max) {
+                        matches.clear(slot);
+                    }
+                }
+            }
+
+            return matches;
+        }
+
+        private static BitSet union(Map<String, BitSet> index, Collection<String> values) {
+            BitSet union = new BitSet();
+            for (String value : values) {
+                BitSet bits = index.get(value);
+                if (bits != null) {
+                    union.or(bits);
+                }
+            }
+            return union;
+        }
+
+        private static long toCents(BigDecimal price, RoundingMode rounding) {
+            return price.movePointRight(2).setScale(0, rounding).longValue();
+        }
+
+        /**
+         * Returns every slot ordered by the sort, then by ascending id.
+         * Missing ratings come last in ascending order and first in descending order, as in Postgres.
+         */
+        int[] order(Sort.Order sort) {
+            return orders.computeIfAbsent(sort, key -> {
+                Comparator<Integer> bySort = switch (key.getProperty()) {
+                    case "name" -> Comparator.comparingInt(slot -> nameRanks[slot]);
+                    case "price" -> Comparator.comparingLong(slot -> prices[slot]);
+                    case "creationDate" -> Comparator.comparingLong(slot -> creationDates[slot]);
+                    default -> (a, b) -> Double.compare(ratings[a], ratings[b]);
+                };
+                if (key.isDescending()) {
+                    bySort = bySort.reversed();
+                }
+                return IntStream.range(0, size)
+                        .boxed()
+                        .sorted(bySort.thenComparingInt(slot -> ids[slot]))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            });
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.sunflowers.ecommerce.product.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time from a stream, following RFC 4180: fields are separated by commas and may be
+ * quoted, with doubled quotes standing for a quote and line breaks allowed inside quotes. A byte order mark at the
+ * start of the stream is skipped.
+ */
+class CsvRecordReader {
+
+    private final Reader reader;
+    private int next = -2;
+    private boolean started;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record, skipping empty lines.
+     *
+     * @return the fields of the record, or null at the end of the stream
+     * @throws IOException if the stream cannot be read or a quoted field is not closed
+     */
+    List<String> read() throws IOException {
+        List<String> fields;
+        do {
+            if (peek() == -1) {
+                return null;
+            }
+            fields = readRecord();
+        } while (fields.size() == 1 && fields.get(0).isEmpty());
+        return fields;
+    }
+
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            int c = take();
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        field.append((char) take());
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r' && peek() == '\n') {
+                    take();
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (next == -2) {
+            next = reader.read();
+            if (!started) {
+                started = true;
+                if (next == '\uFEFF') {
+                    next = reader.read();
+                }
+            }
+        }
+        return next;
+    }
+
+    private int take() throws IOException {
+        int c = peek();
+        next = -2;
+        return c;
+    }
+}
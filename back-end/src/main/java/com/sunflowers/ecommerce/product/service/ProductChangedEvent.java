@@ -0,0 +1,12 @@
+package com.sunflowers.ecommerce.product.service;
+
+import java.util.Collection;
+
+/**
+ * Published when products, their inventories or their ratings are written, so views derived from the catalog can
+ * refresh them once the transaction commits.
+ *
+ * @param productIds the IDs of the changed products
+ */
+public record ProductChangedEvent(Collection<Integer> productIds) {
+}
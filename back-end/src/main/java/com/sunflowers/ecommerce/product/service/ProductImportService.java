@@ -0,0 +1,399 @@
+package com.sunflowers.ecommerce.product.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sunflowers.ecommerce.inventory.entity.Color;
+import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import com.sunflowers.ecommerce.inventory.repository.ColorRepository;
+import com.sunflowers.ecommerce.inventory.request.CreateInventoryRequest;
+import com.sunflowers.ecommerce.product.entity.Category;
+import com.sunflowers.ecommerce.product.entity.Product;
+import com.sunflowers.ecommerce.product.repository.CategoryRepository;
+import com.sunflowers.ecommerce.product.request.ProductImportRow;
+import com.sunflowers.ecommerce.product.response.ProductImportResponse;
+import com.sunflowers.ecommerce.response.CachedResponses;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports products and their inventories in bulk from a streamed CSV or JSON file.
+ * Rows are validated as they are read, against categories and colors loaded once, and valid rows are written in
+ * chunks of {@code product.import.batch-size}, each in its own transaction with JDBC batching. A chunk that fails is
+ * written again row by row, so only the faulty rows are rejected.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    /**
+     * The columns of a CSV import. Categories are separated by {@code |}, and so are inventories, each written as
+     * {@code size:color:stock}.
+     */
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "price", "categories", "inventories");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ColorRepository colorRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CachedResponses cachedResponses;
+
+    @Value("${product.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${product.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public ProductImportService(PlatformTransactionManager transactionManager, CategoryRepository categoryRepository,
+                                ColorRepository colorRepository, ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher, CachedResponses cachedResponses) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.categoryRepository = categoryRepository;
+        this.colorRepository = colorRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.cachedResponses = cachedResponses;
+    }
+
+    /**
+     * Imports the products of a CSV file with a header row naming the columns name, description, price,
+     * categories and inventories, in any order.
+     *
+     * @param input the file content
+     * @return the import report
+     * @throws IllegalArgumentException if the header is missing a column
+     */
+    public ProductImportResponse importCsv(InputStream input) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        List<String> header = csv.read();
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(), i);
+        }
+        List<String> missing = CSV_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Missing columns: " + String.join(", ", missing));
+        }
+
+        return importRows(() -> {
+            List<String> fields = csv.read();
+            return fields == null ? null : toRow(fields, columns);
+        });
+    }
+
+    /**
+     * Imports the products of a JSON array of {@link ProductImportRow}.
+     * The array is read one product at a time, so the file is never held in memory.
+     *
+     * @param input the file content
+     * @return the import report
+     * @throws IllegalArgumentException if the content is not a JSON array
+     */
+    public ProductImportResponse importJson(InputStream input) throws IOException {
+        JsonParser parser = objectMapper.createParser(input);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("The file must contain a JSON array of products");
+        }
+
+        return importRows(() -> {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+
+            JsonNode node = objectMapper.readTree(parser);
+            try {
+                return objectMapper.treeToValue(node, ProductImportRow.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid product: " + e.getOriginalMessage());
+            }
+        });
+    }
+
+    private ProductImportResponse importRows(RowReader rows) {
+        long start = System.nanoTime();
+        Set<String> categories = new HashSet<>();
+        categoryRepository.findAll().forEach(category -> categories.add(category.getName()));
+        Set<String> colors = new HashSet<>();
+        colorRepository.findAll().forEach(color -> colors.add(color.getName()));
+
+        Report report = new Report(maxReportedErrors);
+        List<PendingRow> chunk = new ArrayList<>();
+        long row = 0;
+        while (true) {
+            ProductImportRow data;
+            try {
+                data = rows.next();
+            } catch (IllegalArgumentException e) {
+                report.fail(++row, e.getMessage());
+                continue;
+            } catch (IOException e) {
+                report.fail(row + 1, "The file could not be read: " + e.getMessage());
+                report.aborted = true;
+                break;
+            }
+            if (data == null) {
+                break;
+            }
+
+            row++;
+            try {
+                validate(data, categories, colors);
+                chunk.add(new PendingRow(row, data));
+            } catch (IllegalArgumentException e) {
+                report.fail(row, e.getMessage());
+            }
+
+            if (chunk.size() >= batchSize) {
+                write(chunk, report);
+                chunk.clear();
+            }
+        }
+        write(chunk, report);
+        if (report.imported > 0) {
+            cachedResponses.invalidate(CachedResponses.Resource.INVENTORY_VALUES);
+        }
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Imported {} of {} products in {} ms", report.imported, row, durationMillis);
+        return ProductImportResponse.builder()
+                .rows(row)
+                .imported(report.imported)
+                .failed(report.failed)
+                .aborted(report.aborted)
+                .errors(report.errors)
+                .durationMillis(durationMillis)
+                .rowsPerSecond(durationMillis == 0 ? row : row * 1000.0 / durationMillis)
+                .build();
+    }
+
+    /**
+     * Writes the chunk in one transaction, or row by row if it fails so the faulty rows can be reported.
+     */
+    private void write(List<PendingRow> chunk, Report report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            persist(chunk);
+            report.imported += chunk.size();
+        } catch (RuntimeException e) {
+            for (PendingRow pending : chunk) {
+                try {
+                    persist(List.of(pending));
+                    report.imported++;
+                } catch (RuntimeException rowError) {
+                    report.fail(pending.row(), NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+    }
+
+    private void persist(List<PendingRow> rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Integer> ids = new ArrayList<>();
+            for (PendingRow pending : rows) {
+                Product product = toProduct(pending.data());
+                entityManager.persist(product);
+                ids.add(product.getId());
+            }
+            entityManager.flush();
+            entityManager.clear();
+            eventPublisher.publishEvent(new ProductChangedEvent(ids));
+        });
+    }
+
+    /**
+     * Checks the row against the same rules as single product and inventory creation.
+     *
+     * @throws IllegalArgumentException describing the first invalid value
+     */
+    private static void validate(ProductImportRow row, Set<String> categories, Set<String> colors) {
+        if (row.getName() == null || row.getName().isBlank() || row.getName().length() > 255) {
+            throw new IllegalArgumentException("Name is required and must be less than 256 characters");
+        }
+        if (row.getDescription() == null || row.getDescription().isBlank() || row.getDescription().length() > 1000) {
+            throw new IllegalArgumentException("Description is required and must be less than 1000 characters");
+        }
+        if (row.getPrice() == null || row.getPrice().signum() < 0 || row.getPrice().scale() > 2
+                || row.getPrice().precision() - row.getPrice().scale() > 8) {
+            throw new IllegalArgumentException("Invalid price " + row.getPrice());
+        }
+
+        if (row.getCategories() == null || new HashSet<>(row.getCategories()).size() != 3) {
+            throw new IllegalArgumentException("Exactly 3 categories are required");
+        }
+        for (String category : row.getCategories()) {
+            if (!categories.contains(category)) {
+                throw new IllegalArgumentException("Category not found " + category);
+            }
+        }
+
+        Set<String> variants = new HashSet<>();
+        for (CreateInventoryRequest inventory : row.getInventories() == null ? List.<CreateInventoryRequest>of() : row.getInventories()) {
+            if (inventory.getStock() == null || inventory.getStock() < 0) throw new IllegalArgumentException("Stock cannot be negative");
+            if (inventory.getSize() == null || inventory.getSize().length() > 5 || inventory.getSize().isEmpty()) throw new IllegalArgumentException("Invalid size");
+            if (inventory.getColor() == null || !colors.contains(inventory.getColor().toLowerCase())) {
+                throw new IllegalArgumentException("Color not found " + inventory.getColor());
+            }
+            if (!variants.add(inventory.getSize().toUpperCase() + ":" + inventory.getColor().toLowerCase())) {
+                throw new IllegalArgumentException("Duplicate inventory " + inventory.getSize() + " " + inventory.getColor());
+            }
+        }
+    }
+
+    /**
+     * Builds the product and its inventories. Categories and colors are referenced by name without being loaded,
+     * since the row was validated against them.
+     */
+    private Product toProduct(ProductImportRow row) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Product product = Product.builder()
+                .lastUpdate(now)
+                .creationDate(now)
+                .name(row.getName())
+                .description(row.getDescription())
+                .price(row.getPrice())
+                .categories(row.getCategories().stream()
+                        .map(name -> entityManager.getReference(Category.class, name))
+                        .toList())
+                .build();
+
+        List<Inventory> inventories = new ArrayList<>();
+        if (row.getInventories() != null) {
+            for (CreateInventoryRequest request : row.getInventories()) {
+                inventories.add(Inventory.builder()
+                        .product(product)
+                        .color(entityManager.getReference(Color.class, request.getColor().toLowerCase()))
+                        .size(request.getSize().toUpperCase())
+                        .stock(request.getStock())
+                        .build());
+            }
+        }
+        product.setInventories(inventories);
+        return product;
+    }
+
+    private static ProductImportRow toRow(List<String> fields, Map<String, Integer> columns) {
+        List<CreateInventoryRequest> inventories = new ArrayList<>();
+        for (String inventory : split(field(fields, columns, "inventories"))) {
+            String[] parts = inventory.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid inventory " + inventory + ", expected size:color:stock");
+            }
+            inventories.add(CreateInventoryRequest.builder()
+                    .size(parts[0].trim())
+                    .color(parts[1].trim())
+                    .stock(parseStock(parts[2]))
+                    .build());
+        }
+
+        String price = field(fields, columns, "price");
+        return ProductImportRow.builder()
+                .name(field(fields, columns, "name"))
+                .description(field(fields, columns, "description"))
+                .price(price.isBlank() ? null : parseNumber(price, "price"))
+                .categories(split(field(fields, columns, "categories")))
+                .inventories(inventories)
+                .build();
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        return index < fields.size() ? fields.get(index) : "";
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.split("\\|"))
+                .map(String::trim)
+                .filter(part -> !part.isEmpty())
+                .toList();
+    }
+
+    private static int parseStock(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid stock " + value);
+        }
+    }
+
+    private static BigDecimal parseNumber(String value, String name) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + " " + value);
+        }
+    }
+
+    /**
+     * Reads the rows of the file one at a time.
+     */
+    private interface RowReader {
+
+        /**
+         * @return the next row, or null at the end of the file
+         * @throws IllegalArgumentException if the row cannot be mapped; the next call reads the following row
+         * @throws IOException              if the file cannot be read any further
+         */
+        ProductImportRow next() throws IOException;
+    }
+
+    private record PendingRow(long row, ProductImportRow data) {
+    }
+
+    private static class Report {
+
+        final int maxErrors;
+        final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+        long imported;
+        long failed;
+        boolean aborted;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void fail(long row, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ProductImportResponse.RowError(row, message));
+            }
+        }
+    }
+}
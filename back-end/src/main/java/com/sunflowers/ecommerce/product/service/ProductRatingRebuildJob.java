@@ -0,0 +1,35 @@
+package com.sunflowers.ecommerce.product.service;
+
+import com.sunflowers.ecommerce.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Rebuilds the materialized product ratings from the reviews at startup when they are out of sync, e.g. for
+ * reviews created before the ratings were materialized. Setting {@code product.rating.rebuild-on-startup} forces
+ * the rebuild.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductRatingRebuildJob implements ApplicationRunner {
+
+    private final ProductRepository productRepository;
+
+    @Value("${product.rating.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        if (rebuildOnStartup || productRepository.ratingsOutOfSync()) {
+            int updated = productRepository.rebuildRatings();
+            log.info("Rebuilt the rating of {} products", updated);
+        }
+    }
+}
@@ -1,19 +1,28 @@
 package com.sunflowers.ecommerce.product.service;
 
 import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import com.sunflowers.ecommerce.product.dto.CatalogCursor;
+import com.sunflowers.ecommerce.product.dto.ProductFacets;
+import com.sunflowers.ecommerce.product.dto.ProductSlice;
+import com.sunflowers.ecommerce.product.dto.ProductSummaryDTO;
 import com.sunflowers.ecommerce.product.entity.Product;
 import com.sunflowers.ecommerce.product.entity.Category;
 import com.sunflowers.ecommerce.product.entity.ProductImage;
 import com.sunflowers.ecommerce.product.repository.CategoryRepository;
+import com.sunflowers.ecommerce.product.repository.ProductIdQueries;
 import com.sunflowers.ecommerce.product.repository.ProductImageRepository;
 import com.sunflowers.ecommerce.product.repository.ProductRepository;
 import com.sunflowers.ecommerce.product.request.CreateProductRequest;
 import com.sunflowers.ecommerce.product.request.ProductRequest;
 import com.sunflowers.ecommerce.utils.RepositoryUtils;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -22,7 +31,14 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service class for performing operations on Product entities.
@@ -30,6 +46,11 @@ import java.util.List;
 @Service
 public class ProductService {
 
+    /**
+     * Sort value ordering the search results by relevance to the name filter.
+     */
+    private static final String RELEVANCE = "relevance";
+
     @Autowired
     private ProductRepository productRepository;
 
@@ -39,57 +60,248 @@ public class ProductService {
     @Autowired
     private ProductImageRepository productImageRepository;
 
+    @Autowired(required = false)
+    private CatalogReadModel catalogReadModel;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${product.facets.price-bounds:25,50,100,200}")
+    private BigDecimal[] priceBounds;
+
+    /**
+     * The facets whose filter matches any of the selected values, so they are counted without their own filter.
+     * Categories are not among them since every selected category must match.
+     */
+    private enum Facet {
+        SIZES, COLORS, PRICE
+    }
+
     /**
      * Retrieves a list of Product entities based on the provided request.
      * The request can contain search criteria such as price range, categories, sizes, and colors.
      * The products are returned in a Page object, which contains the entities for the current page and metadata.
+     * Only the IDs of the page are queried with the filters; the products are then loaded in one batch by ID.
+     * The IDs come from the {@link CatalogReadModel} when it is enabled and supports the request.
      *
      * @param request the request containing the search criteria
      * @return a Page containing the Product entities that match the search criteria
      */
     public Page<Product> getProducts(ProductRequest request) {
-        Pageable pageable = PageRequest.of(request.getPage(), request.getPageSize(), Sort.by(getSortDirection(request.getDirection()), request.getSortBy()));
+        return findPage(request, this::loadInOrder);
+    }
+
+    /**
+     * Retrieves a page of the catalog as listing summaries, reading only the columns a listing shows.
+     *
+     * @param request the request containing the search criteria
+     * @return a Page containing the summaries of the products that match the search criteria
+     */
+    public Page<ProductSummaryDTO> getProductSummaries(ProductRequest request) {
+        return findPage(request, this::loadSummariesInOrder);
+    }
+
+    /**
+     * Retrieves a page of products in cursor mode.
+     * The page is located from the sort value and id carried by the cursor instead of an offset, and no total count
+     * is computed, so every page costs the same regardless of its depth.
+     *
+     * @param request the request containing the search criteria and the cursor
+     * @return the products of the page and the cursor of the next one
+     */
+    public ProductSlice<Product> getProductSlice(ProductRequest request) {
+        return findSlice(request, this::loadInOrder);
+    }
+
+    /**
+     * Retrieves a page of listing summaries in cursor mode.
+     *
+     * @param request the request containing the search criteria and the cursor
+     * @return the summaries of the page and the cursor of the next one
+     */
+    public ProductSlice<ProductSummaryDTO> getProductSummarySlice(ProductRequest request) {
+        return findSlice(request, this::loadSummariesInOrder);
+    }
+
+    private <T> Page<T> findPage(ProductRequest request, Function<List<Integer>, List<T>> loader) {
+        String searchQuery = toSearchQuery(request.getName());
+        boolean byRelevance = RELEVANCE.equals(request.getSortBy());
+        if (byRelevance && searchQuery == null) {
+            throw new IllegalArgumentException("Sorting by relevance requires a name to search");
+        }
+        Sort sort = byRelevance ? Sort.unsorted() : Sort.by(getSortDirection(request.getDirection()), request.getSortBy());
+        Pageable pageable = PageRequest.of(request.getPage(), request.getPageSize(), sort);
+
+        Optional<Page<Integer>> cached = catalogReadModel == null || searchQuery != null
+                ? Optional.empty()
+                : catalogReadModel.findIds(request, pageable);
+        Page<Integer> ids = cached.orElseGet(() ->
+                productRepository.findIds(catalogFilter(request), byRelevance ? searchQuery : null, pageable));
+        return new PageImpl<>(loader.apply(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    private <T> ProductSlice<T> findSlice(ProductRequest request, Function<List<Integer>, List<T>> loader) {
+        CatalogCursor.Key key = CatalogCursor.Key.of(request.getSortBy());
+        Sort.Order order = new Sort.Order(getSortDirection(request.getDirection()), key.name());
+
+        Object lastValue = null;
+        Integer lastId = null;
+        if (request.getCursor() != null && !request.getCursor().isEmpty()) {
+            CatalogCursor cursor = CatalogCursor.decode(request.getCursor());
+            if (!cursor.sortBy().equals(order.getProperty()) || !cursor.direction().equals(order.getDirection().name())) {
+                throw new IllegalArgumentException("The cursor does not match the requested sort");
+            }
+            lastValue = cursor.value();
+            lastId = cursor.id();
+        }
+
+        List<ProductIdQueries.KeysetRow> rows = productRepository.findIdsAfter(catalogFilter(request), order, lastValue, lastId, request.getPageSize() + 1);
+        String nextCursor = null;
+        if (rows.size() > request.getPageSize()) {
+            rows = rows.subList(0, request.getPageSize());
+            ProductIdQueries.KeysetRow last = rows.get(rows.size() - 1);
+            nextCursor = new CatalogCursor(order.getProperty(), order.getDirection().name(), last.sortValue(), last.id()).encode();
+        }
+
+        return new ProductSlice<>(loader.apply(rows.stream().map(ProductIdQueries.KeysetRow::id).toList()), nextCursor);
+    }
 
-        Specification<Product> spec = (root, query, cb) -> {
+    /**
+     * Counts the products matching the request for every category, size, color and price range, so the filters can
+     * show how many products each value leads to.
+     * Each facet is counted with one aggregate query. Sizes, colors and prices are counted without their own filter,
+     * so the other values of a facet still show how many products selecting them would add.
+     *
+     * @param request the request containing the search criteria
+     * @return the product counts of every facet value
+     */
+    @Transactional(readOnly = true)
+    public ProductFacets getFacets(ProductRequest request) {
+        return new ProductFacets(
+                productRepository.countByCategory(catalogFilter(request)),
+                productRepository.countBySize(catalogFilter(request, Facet.SIZES)),
+                productRepository.countByColor(catalogFilter(request, Facet.COLORS)),
+                productRepository.countByPriceBucket(catalogFilter(request, Facet.PRICE), Arrays.asList(priceBounds)));
+    }
+
+    /**
+     * Loads the products with the given IDs in one query and returns them in the same order.
+     */
+    private List<Product> loadInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        return inOrder(ids, productRepository.findAllByIdIn(ids), Product::getId);
+    }
+
+    /**
+     * Loads the listing summaries of the products with the given IDs in one query and returns them in the same order.
+     */
+    private List<ProductSummaryDTO> loadSummariesInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        return inOrder(ids, productRepository.findSummariesByIdIn(ids), ProductSummaryDTO::id);
+    }
+
+    private static <T> List<T> inOrder(List<Integer> ids, List<T> loaded, Function<T, Integer> idOf) {
+        Map<Integer, T> byId = loaded.stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Builds the catalog filter of the request.
+     * Category, size and color filters are expressed as EXISTS subqueries instead of joins, so a product matches
+     * at most once regardless of how many inventories or categories it has, and no grouping is needed.
+     *
+     * @param request the request containing the search criteria
+     * @return the specification matching the request
+     */
+    private Specification<Product> catalogFilter(ProductRequest request) {
+        return catalogFilter(request, null);
+    }
+
+    /**
+     * Builds the catalog filter of the request without the filter of one facet.
+     *
+     * @param request  the request containing the search criteria
+     * @param excluded the facet whose filter is left out, or null to apply them all
+     * @return the specification matching the request
+     */
+    private Specification<Product> catalogFilter(ProductRequest request, Facet excluded) {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             predicates.add(cb.isNull(root.get("deleted")));
 
-            if (request.getMinPrice() != null) {
+            if (request.getMinPrice() != null && excluded != Facet.PRICE) {
                 predicates.add(cb.greaterThanOrEqualTo(root.get("price"), request.getMinPrice()));
             }
-            if (request.getMaxPrice() != null) {
+            if (request.getMaxPrice() != null && excluded != Facet.PRICE) {
                 predicates.add(cb.lessThanOrEqualTo(root.get("price"), request.getMaxPrice()));
             }
 
             if (request.getCategories() != null && !request.getCategories().isEmpty()) {
-                Join<Product, Category> join = root.join("categories", JoinType.INNER);
-                Predicate categoryPredicate = join.get("name").in(request.getCategories());
-                predicates.add(categoryPredicate);
-                query.groupBy(root.get("id"));
-                query.having(cb.equal(cb.count(root.get("id")), request.getCategories().size()));
+                for (String category : new HashSet<>(request.getCategories())) {
+                    Subquery<String> subquery = query.subquery(String.class);
+                    Join<Product, Category> join = subquery.correlate(root).join("categories");
+                    subquery.select(join.get("name")).where(cb.equal(join.get("name"), category));
+                    predicates.add(cb.exists(subquery));
+                }
             }
 
-            if (request.getSizes() != null && !request.getSizes().isEmpty()) {
-                Join<Product, Inventory> inventoryJoin = root.join("inventories", JoinType.INNER);
-                Predicate sizePredicate = inventoryJoin.get("size").in(request.getSizes());
-                predicates.add(sizePredicate);
+            if (request.getSizes() != null && !request.getSizes().isEmpty() && excluded != Facet.SIZES) {
+                Subquery<Long> subquery = query.subquery(Long.class);
+                Root<Inventory> inventory = subquery.from(Inventory.class);
+                subquery.select(inventory.get("id")).where(
+                        cb.equal(inventory.get("product"), root),
+                        inventory.get("size").in(request.getSizes()));
+                predicates.add(cb.exists(subquery));
             }
 
-            if (request.getColors() != null && !request.getColors().isEmpty()) {
-                Join<Product, Inventory> inventoryJoin = root.join("inventories", JoinType.INNER);
-                Predicate colorPredicate = inventoryJoin.get("color").get("name").in(request.getColors());
-                predicates.add(colorPredicate);
+            if (request.getColors() != null && !request.getColors().isEmpty() && excluded != Facet.COLORS) {
+                Subquery<Long> subquery = query.subquery(Long.class);
+                Root<Inventory> inventory = subquery.from(Inventory.class);
+                subquery.select(inventory.get("id")).where(
+                        cb.equal(inventory.get("product"), root),
+                        inventory.get("color").get("name").in(request.getColors()));
+                predicates.add(cb.exists(subquery));
             }
 
-            if (request.getName() != null && !request.getName().isEmpty()) {
-                predicates.add(cb.like(cb.lower(root.get("name")), "%" + request.getName().toLowerCase() + "%"));
+            String searchQuery = toSearchQuery(request.getName());
+            if (searchQuery != null) {
+                Expression<String> tsQuery = cb.literal(searchQuery);
+                predicates.add(cb.isTrue(cb.function("product_search_matches", Boolean.class,
+                        root.get("name"), root.get("description"), tsQuery)));
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
+    }
 
-        return productRepository.findAll(spec, pageable);
+    /**
+     * Turns the search text into a full-text query matching products whose name or description contain words
+     * starting with every term, e.g. "red dre" becomes "red:* & dre:*".
+     *
+     * @param text the search text
+     * @return the query, or null if the text has no searchable term
+     */
+    private static String toSearchQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+
+        String query = Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+        return query.isEmpty() ? null : query;
     }
 
     public Sort.Direction getSortDirection(String direction) {
@@ -119,7 +331,8 @@ public class ProductService {
     /**
      * Creates a new Product entity.
      * The request must contain exactly 3 categories and at least one image.
-     * The categories and images must exist in the database.
+     * The categories and images must exist in the database; they are looked up with one query each and the images
+     * are assigned to the product with a single update.
      * The product is created with the current timestamp as the creation date and last update date.
      * The discount is set to null.
      * The product is not deleted.
@@ -146,16 +359,14 @@ public class ProductService {
                 .name(request.getName())
                 .description(request.getDescription())
                 .price(BigDecimal.valueOf(request.getPrice()))
-                .categories(RepositoryUtils.getListOfEntities(request.getCategories(), categoryRepository,"Category"))
+                .categories(RepositoryUtils.getListOfEntities(request.getCategories(), categoryRepository, Category::getName, "Category"))
                 .build();
 
-        List<ProductImage> images = RepositoryUtils.getListOfEntitiesUUID(request.getImageIds(), productImageRepository,"ProductImage");
-
-        for(ProductImage image : images) {
-            image.setProduct(product);
-            productImageRepository.save(image);
-        }
+        List<ProductImage> images = RepositoryUtils.getListOfEntitiesUUID(request.getImageIds(), productImageRepository, ProductImage::getId, "ProductImage");
 
-        return productRepository.save(product);
+        product = productRepository.save(product);
+        productImageRepository.assignToProduct(images.stream().map(ProductImage::getId).toList(), product);
+        eventPublisher.publishEvent(new ProductChangedEvent(List.of(product.getId())));
+        return product;
     }
 }
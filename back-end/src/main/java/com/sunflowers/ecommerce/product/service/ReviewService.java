@@ -1,17 +1,19 @@
 package com.sunflowers.ecommerce.product.service;
 
-import com.sunflowers.ecommerce.auth.config.JwtAuthenticationFilter;
 import com.sunflowers.ecommerce.auth.entity.User;
-import com.sunflowers.ecommerce.auth.service.JwtService;
-import com.sunflowers.ecommerce.auth.service.UserService;
 import com.sunflowers.ecommerce.product.entity.Review;
+import com.sunflowers.ecommerce.product.repository.ProductRepository;
 import com.sunflowers.ecommerce.product.repository.ReviewRepository;
 import com.sunflowers.ecommerce.product.request.CreateReviewRequest;
+import com.sunflowers.ecommerce.response.CachedResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AuthorizationServiceException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
+import java.util.List;
 
 @Service
 public class ReviewService {
@@ -20,24 +22,31 @@ public class ReviewService {
     private ReviewRepository reviewRepository;
 
     @Autowired
-    private UserService userService;
+    private ProductService productService;
 
     @Autowired
-    private ProductService productService;
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    JwtService jwtService;
+    private CachedResponses cachedResponses;
 
     public Iterable<Review> getReviewsByProductId(Long id) {
         return reviewRepository.findAllByProductId(id);
     }
 
 
-    public Review createReview(String authorizationHeader, CreateReviewRequest request) {
-        String token = JwtAuthenticationFilter.getTokenFromHeader(authorizationHeader);
-
-        User user = userService.getUserByEmail(jwtService.extractUsername(token));
-
+    /**
+     * Creates a review and adds its rating to the product's materialized rating in the same transaction.
+     *
+     * @param user    the author of the review
+     * @param request the review details
+     * @return the created review
+     */
+    @Transactional
+    public Review createReview(User user, CreateReviewRequest request) {
         Review review = Review.builder()
                 .user(user)
                 .creationDate(Timestamp.from(new java.util.Date(System.currentTimeMillis()).toInstant()))
@@ -46,6 +55,11 @@ public class ReviewService {
                 .rating(request.getRating())
                 .build();
 
-        return reviewRepository.save(review);
+        review = reviewRepository.save(review);
+        productRepository.addRating(review.getProduct().getId(), review.getRating());
+        eventPublisher.publishEvent(new ProductChangedEvent(List.of(review.getProduct().getId())));
+        cachedResponses.invalidate(CachedResponses.Resource.REVIEWS, review.getProduct().getId());
+        cachedResponses.invalidate(CachedResponses.Resource.PRODUCT, review.getProduct().getId());
+        return review;
     }
 }
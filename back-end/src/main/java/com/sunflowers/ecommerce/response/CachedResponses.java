@@ -0,0 +1,129 @@
+package com.sunflowers.ecommerce.response;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET support for public responses that rarely change.
+ * ETags are derived from a version kept for each cached resource, so a request carrying a current
+ * {@code If-None-Match} is answered with 304 before the response is loaded. Services must call {@link #invalidate}
+ * whenever they write data shown by a cached resource.
+ * <p>
+ * Versions live in memory: ETags carry the start time of the node, so tags issued before a restart or by another
+ * node never match, and a time window of {@code http.cache.etag-lifetime}, which bounds how long a node may keep
+ * validating a response changed through another node.
+ */
+@Component
+public class CachedResponses {
+
+    /**
+     * The cached resources, each with its own versions.
+     */
+    public enum Resource {
+        PRODUCT, REVIEWS, BANNERS, INVENTORY_VALUES, COUNTRIES
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong clock = new AtomicLong();
+    /**
+     * The version of each resource and of each item written since startup, keyed by {@link #versionKey}.
+     */
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final CacheControl cacheControl;
+    private final long etagLifetime;
+
+    public CachedResponses(@Value("${http.cache.max-age:PT0S}") Duration maxAge,
+                           @Value("${http.cache.etag-lifetime:PT15M}") Duration etagLifetime) {
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+        this.etagLifetime = etagLifetime.toMillis();
+    }
+
+    /**
+     * Answers with 304 if the client already holds the current version of the resource, or loads the response and
+     * tags it otherwise. Only successful responses are tagged.
+     *
+     * @param request  the current request
+     * @param resource the requested resource
+     * @param key      the key of the requested item of the resource, or null for the whole resource
+     * @param loader   the function building the response
+     * @return the response, or an empty 304 response
+     */
+    public <T> ResponseEntity<T> respond(WebRequest request, Resource resource, Object key, Supplier<ResponseEntity<T>> loader) {
+        String etag = etag(resource, key);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        ResponseEntity<T> response = loader.get();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(response.getBody());
+    }
+
+    /**
+     * Changes the ETag of the whole resource once the current transaction commits, or immediately without one.
+     * Waiting for the commit keeps a request from tagging data read before the commit with the new version.
+     *
+     * @param resource the written resource
+     */
+    public void invalidate(Resource resource) {
+        afterCommit(() -> versions.put(versionKey(resource, null), clock.incrementAndGet()));
+    }
+
+    /**
+     * Changes the ETag of one item of a resource once the current transaction commits, or immediately without one.
+     *
+     * @param resource the written resource
+     * @param key      the key of the written item
+     */
+    public void invalidate(Resource resource, Object key) {
+        afterCommit(() -> versions.put(versionKey(resource, key), clock.incrementAndGet()));
+    }
+
+    private String etag(Resource resource, Object key) {
+        long version = versions.getOrDefault(versionKey(resource, null), 0L);
+        if (key != null) {
+            version = Math.max(version, versions.getOrDefault(versionKey(resource, key), 0L));
+        }
+        long window = System.currentTimeMillis() / etagLifetime;
+        return "\"" + resource.name().toLowerCase() + (key == null ? "" : "-" + key) + "-" + version + "-" + epoch + "-" + window + "\"";
+    }
+
+    private static String versionKey(Resource resource, Object key) {
+        return key == null ? resource.name() : resource.name() + ":" + key;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -3,45 +3,64 @@ package com.sunflowers.ecommerce.utils;
 import org.springframework.data.repository.CrudRepository;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class RepositoryUtils {
 
     /**
      * Returns a set of entities given a set of keys and a repository.
+     * The entities are retrieved with a single query and returned in the order of the keys.
      *
      * @param keys the keys of the entities to retrieve
      * @param repository the repository to retrieve the entities from
+     * @param idOf the function returning the key of an entity
      * @param entityName the name of the entity to be shown in the exception message
      * @param <T> the type of the entity
      * @param <Y> the type of the key
      * @return a list of entities
+     * @throws IllegalArgumentException listing every key without an entity
      */
-    public static <T, Y> List<T> getListOfEntities(Iterable<Y> keys, CrudRepository<T,Y> repository, String entityName) {
+    public static <T, Y> List<T> getListOfEntities(Iterable<Y> keys, CrudRepository<T,Y> repository, Function<T, Y> idOf, String entityName) {
+        Set<Y> distinctKeys = new LinkedHashSet<>();
+        keys.forEach(distinctKeys::add);
+
+        Map<Y, T> found = new HashMap<>();
+        repository.findAllById(distinctKeys).forEach(entity -> found.put(idOf.apply(entity), entity));
+
+        List<Y> missing = distinctKeys.stream()
+                .filter(key -> !found.containsKey(key))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException(entityName + " not found " + missing.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", ")));
+        }
+
         List<T> entities = new ArrayList<>();
         for (Y key : keys) {
-            T entity = repository.findById(key)
-                    .orElseThrow(() -> new IllegalArgumentException(entityName + " not found " + key));
-            entities.add(entity);
+            entities.add(found.get(key));
         }
         return entities;
     }
 
     /**
      * Returns a set of entities given a set of UUID keys as strings and a repository.
+     * The entities are retrieved with a single query and returned in the order of the keys.
      *
      * @param keys the string keys of the entities to retrieve
      * @param repository the repository to retrieve the entities from
+     * @param idOf the function returning the key of an entity
      * @param entityName the name of the entity to be shown in the exception message
      * @param <T> the type of the entity
      * @return a list of entities
+     * @throws IllegalArgumentException listing every key without an entity, or if a key is not a UUID
      */
-    public static <T> List<T> getListOfEntitiesUUID(Iterable<String> keys, CrudRepository<T,UUID> repository, String entityName) {
-        List<T> entities = new ArrayList<>();
+    public static <T> List<T> getListOfEntitiesUUID(Iterable<String> keys, CrudRepository<T,UUID> repository, Function<T, UUID> idOf, String entityName) {
+        List<UUID> uuids = new ArrayList<>();
         for (String key : keys) {
-            T entity = repository.findById(UUID.fromString(key))
-                    .orElseThrow(() -> new IllegalArgumentException(entityName + " not found " + key));
-            entities.add(entity);
+            uuids.add(UUID.fromString(key));
         }
-        return entities;
+        return getListOfEntities(uuids, repository, idOf, entityName);
     }
 }
\ No newline at end of file
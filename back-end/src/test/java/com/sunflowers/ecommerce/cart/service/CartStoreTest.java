@@ -0,0 +1,184 @@
+package com.sunflowers.ecommerce.cart.service;
+
+import com.sunflowers.ecommerce.auth.entity.User;
+import com.sunflowers.ecommerce.cart.repository.CartItemRepository;
+import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import com.sunflowers.ecommerce.product.entity.Product;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks that the cart store writes changes behind to cart_item in a real Postgres: repeated changes collapse into
+ * one row, pending changes are written on shutdown, ordered items are removed only once the order commits, and a
+ * row the database rejects is dropped without holding back the rest of its batch.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CartStoreTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static DataSourceTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    private CartStore cartStore;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        transactionManager = new DataSourceTransactionManager(dataSource);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE inventory (id bigint PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE cart_item (id bigserial PRIMARY KEY, user_id uuid NOT NULL, " +
+                "inventory_id bigint NOT NULL REFERENCES inventory (id), amount integer NOT NULL, " +
+                "UNIQUE (user_id, inventory_id))");
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = spy(new JdbcTemplate(dataSource));
+        jdbcTemplate.update("DELETE FROM cart_item");
+        jdbcTemplate.update("DELETE FROM inventory");
+        jdbcTemplate.update("INSERT INTO inventory SELECT generate_series(1, 10)");
+        clearInvocations(jdbcTemplate);
+
+        // Carts start empty, so they are never read from cart_item
+        cartStore = new CartStore(mock(CartItemRepository.class), jdbcTemplate, transactionManager,
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(30), Duration.ofMinutes(10), 1000);
+    }
+
+    @Test
+    void repeatedChangesAreWrittenAsOneRow() {
+        User user = user();
+        for (int i = 0; i < 5; i++) {
+            cartStore.add(user, 1, 1, inventory(1));
+        }
+        cartStore.add(user, 2, 3, inventory(2));
+        cartStore.remove(user, 2, 1);
+
+        cartStore.flushPending();
+
+        verify(jdbcTemplate, times(1)).update(any(PreparedStatementCreator.class));
+        assertThat(amounts(user)).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 5, 2L, 2));
+
+        cartStore.flushPending();
+        verify(jdbcTemplate, times(1)).update(any(PreparedStatementCreator.class));
+    }
+
+    @Test
+    void pendingChangesAreWrittenOnShutdown() {
+        User user = user();
+        cartStore.add(user, 1, 2, inventory(1));
+        cartStore.add(user, 3, 1, inventory(3));
+
+        cartStore.stop();
+
+        assertThat(amounts(user)).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 2, 3L, 1));
+    }
+
+    @Test
+    void orderedItemsAreRemovedOnlyOnceTheOrderCommits() {
+        User user = user();
+        cartStore.add(user, 1, 1, inventory(1));
+        cartStore.add(user, 2, 1, inventory(2));
+        cartStore.flushPending();
+        cartStore.add(user, 1, 1, inventory(1));
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            cartStore.removeAll(user.getId(), Set.of(1L));
+            status.setRollbackOnly();
+        });
+        assertThat(cartStore.contains(user, 1)).isTrue();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cartStore.removeAll(user.getId(), Set.of(1L));
+            assertThat(cartStore.contains(user, 1)).isTrue();
+        });
+        assertThat(cartStore.contains(user, 1)).isFalse();
+        assertThat(cartStore.contains(user, 2)).isTrue();
+
+        // An amount changed before the removal cannot bring the item back
+        cartStore.flushPending();
+        assertThat(amounts(user)).containsExactlyEntriesOf(Map.of(2L, 1));
+    }
+
+    @Test
+    void rejectedRowIsDroppedWithoutHoldingBackItsBatch() {
+        User first = user();
+        User second = user();
+        for (long inventoryId = 1; inventoryId <= 5; inventoryId++) {
+            cartStore.add(first, inventoryId, 1, inventory(inventoryId));
+        }
+        cartStore.add(second, 1, 2, inventory(1));
+        cartStore.add(second, 2, 2, inventory(2));
+        jdbcTemplate.update("DELETE FROM inventory WHERE id = 3");
+        clearInvocations(jdbcTemplate);
+
+        cartStore.flushPending();
+
+        assertThat(amounts(first)).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 1, 2L, 1, 4L, 1, 5L, 1));
+        assertThat(amounts(second)).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 2, 2L, 2));
+
+        clearInvocations(jdbcTemplate);
+        cartStore.flushPending();
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class));
+    }
+
+    private Map<Long, Integer> amounts(User user) {
+        return jdbcTemplate.query("SELECT inventory_id, amount FROM cart_item WHERE user_id = ?",
+                rs -> {
+                    Map<Long, Integer> amounts = new HashMap<>();
+                    while (rs.next()) {
+                        amounts.put(rs.getLong("inventory_id"), rs.getInt("amount"));
+                    }
+                    return amounts;
+                }, user.getId());
+    }
+
+    private static User user() {
+        return User.builder().id(UUID.randomUUID()).build();
+    }
+
+    private static Supplier<Inventory> inventory(long id) {
+        Product product = Product.builder().id((int) id).name("Product " + id).build();
+        return () -> Inventory.builder().id(id).product(product).size("M").stock(10).build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.sunflowers.ecommerce.email;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailDispatcherTest {
+
+    private static final int MESSAGES = 10_000;
+    private static final int WORKERS = 2;
+    private static final int BATCH_SIZE = 50;
+    /**
+     * The stand-in's acceptor and its pool of 8 sessions.
+     */
+    private static final int STAND_IN_THREADS = 9;
+    /**
+     * Room for threads the JVM starts on its own while the test runs.
+     */
+    private static final int SPARE_THREADS = 2;
+
+    private ThreadMXBean threads;
+    private int baseline;
+    private SmtpStandIn smtp;
+    private SimpleMeterRegistry meterRegistry;
+    private MailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Taken before any thread of the test starts, so the workers are counted
+        threads = ManagementFactory.getThreadMXBean();
+        baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        smtp = new SmtpStandIn();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new MailDispatcher(mailSender, meterRegistry, 1000, WORKERS, BATCH_SIZE, 3,
+                Duration.ofMillis(10), Duration.ofSeconds(30));
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dispatcher.stop();
+        smtp.close();
+    }
+
+    @Test
+    void sendsTenThousandMessagesWithAFixedNumberOfThreadsAndReusedConnections() throws Exception {
+        CountDownLatch completed = new CountDownLatch(MESSAGES);
+        AtomicInteger delivered = new AtomicInteger();
+        for (int i = 0; i < MESSAGES; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom("shop@example.com");
+            message.setTo("user" + i + "@example.com");
+            message.setSubject("Order " + i);
+            message.setText("Thanks for your order");
+            assertThat(dispatcher.enqueue(message, ok -> {
+                if (ok) {
+                    delivered.incrementAndGet();
+                }
+                completed.countDown();
+            })).isTrue();
+        }
+
+        assertThat(completed.await(2, TimeUnit.MINUTES)).isTrue();
+        assertThat(delivered.get()).isEqualTo(MESSAGES);
+        assertThat(smtp.messages()).isEqualTo(MESSAGES);
+        assertThat(meterRegistry.counter("mail.sent").count()).isEqualTo(MESSAGES);
+        assertThat(meterRegistry.counter("mail.dropped").count()).isZero();
+
+        // One connection per batch, instead of one per message
+        assertThat(smtp.connections()).isLessThan(MESSAGES / 10);
+        // The workers and the stand-in's own session pool, not a thread per message
+        assertThat(threads.getPeakThreadCount() - baseline).isLessThanOrEqualTo(WORKERS + STAND_IN_THREADS + SPARE_THREADS);
+    }
+}
@@ -0,0 +1,130 @@
+package com.sunflowers.ecommerce.inventory.service;
+
+import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import com.sunflowers.ecommerce.inventory.response.StockChange;
+import com.sunflowers.ecommerce.inventory.response.StockChangesResponse;
+import com.sunflowers.ecommerce.response.CachedResponses;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Follows the stock changes feed while reservations commit out of version order, checking that no change is skipped.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class StockChangesFeedTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static StockReservationService reservations;
+    private static StockSyncService stockSyncService;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SEQUENCE inventory_version_seq");
+        jdbcTemplate.execute("CREATE TABLE inventory (id bigint PRIMARY KEY, product_id integer NOT NULL, " +
+                "stock integer NOT NULL CHECK (stock >= 0), version bigint NOT NULL DEFAULT nextval('inventory_version_seq'), " +
+                "version_xid bigint NOT NULL DEFAULT " + Inventory.WRITER_XID + ")");
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        CachedResponses cachedResponses = new CachedResponses(Duration.ZERO, Duration.ofMinutes(15));
+        reservations = new StockReservationService(jdbcTemplate, namedParameterJdbcTemplate, cachedResponses);
+        stockSyncService = new StockSyncService(transactionManager, jdbcTemplate, namedParameterJdbcTemplate, event -> {
+        }, cachedResponses);
+        ReflectionTestUtils.setField(stockSyncService, "batchSize", 1000);
+        ReflectionTestUtils.setField(stockSyncService, "maxChanges", 1000);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM inventory");
+        jdbcTemplate.update("INSERT INTO inventory (id, product_id, stock) VALUES (1, 1, 10), (2, 1, 10), (3, 1, 10)");
+    }
+
+    @Test
+    void changeCommittedAfterAHigherVersionIsNotSkipped() throws Exception {
+        long position = stockSyncService.changesSince(0, 100).getNext();
+
+        // The first reservation takes the lower version but commits last
+        CountDownLatch reserved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            reservations.reserve(Map.of(1L, 1));
+            reserved.countDown();
+            await(commit);
+        }));
+        assertThat(reserved.await(10, TimeUnit.SECONDS)).isTrue();
+        transactionTemplate.executeWithoutResult(status -> reservations.reserve(Map.of(2L, 1)));
+
+        StockChangesResponse whileRunning = stockSyncService.changesSince(position, 100);
+        assertThat(whileRunning.getChanges()).isEmpty();
+
+        commit.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+
+        StockChangesResponse afterCommit = stockSyncService.changesSince(whileRunning.getNext(), 100);
+        assertThat(afterCommit.getChanges()).extracting(StockChange::inventoryId).containsExactly(1L, 2L);
+        assertThat(afterCommit.getChanges()).extracting(StockChange::stock).containsExactly(9, 9);
+        assertThat(afterCommit.isHasMore()).isFalse();
+
+        assertThat(stockSyncService.changesSince(afterCommit.getNext(), 100).getChanges()).isEmpty();
+    }
+
+    @Test
+    void changesOfOneTransactionAreNotSplitByTheLimit() {
+        long position = stockSyncService.changesSince(0, 100).getNext();
+        transactionTemplate.executeWithoutResult(status -> reservations.reserve(Map.of(1L, 1, 2L, 1, 3L, 1)));
+        transactionTemplate.executeWithoutResult(status -> reservations.reserve(Map.of(1L, 1)));
+
+        StockChangesResponse first = stockSyncService.changesSince(position, 2);
+        assertThat(first.getChanges()).extracting(StockChange::inventoryId).containsExactly(2L, 3L);
+        assertThat(first.isHasMore()).isTrue();
+
+        StockChangesResponse second = stockSyncService.changesSince(first.getNext(), 2);
+        assertThat(second.getChanges()).extracting(StockChange::inventoryId).containsExactly(1L);
+        assertThat(second.getChanges()).extracting(StockChange::stock).containsExactly(8);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
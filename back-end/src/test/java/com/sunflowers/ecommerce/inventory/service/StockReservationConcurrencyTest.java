@@ -0,0 +1,195 @@
+package com.sunflowers.ecommerce.inventory.service;
+
+import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import com.sunflowers.ecommerce.response.CachedResponses;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers stock reservations from many threads against a real Postgres, checking that stock is never oversold,
+ * that every rejected reservation reports the short item and that reservations over the same items never deadlock.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class StockReservationConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    private static final long HOT_SKU = 1;
+    private static final long OTHER_SKU = 2;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static StockReservationService reservations;
+
+    private ExecutorService threads;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        dataSource.setMaximumPoolSize(THREADS);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SEQUENCE inventory_version_seq");
+        jdbcTemplate.execute("CREATE TABLE inventory (id bigint PRIMARY KEY, product_id integer NOT NULL, " +
+                "stock integer NOT NULL CHECK (stock >= 0), version bigint NOT NULL DEFAULT nextval('inventory_version_seq'), " +
+                "version_xid bigint NOT NULL DEFAULT " + Inventory.WRITER_XID + ")");
+
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        reservations = new StockReservationService(jdbcTemplate, new NamedParameterJdbcTemplate(dataSource),
+                new CachedResponses(Duration.ZERO, Duration.ofMinutes(15)));
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM inventory");
+        threads = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @Test
+    void hotSkuIsNeverOversold() throws Exception {
+        int initialStock = 100;
+        jdbcTemplate.update("INSERT INTO inventory (id, product_id, stock) VALUES (?, 1, ?)", HOT_SKU, initialStock);
+
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        hammer(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> reservations.reserve(Map.of(HOT_SKU, 1)));
+                reserved.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                assertThat(e.getShortages()).singleElement().satisfies(shortage -> {
+                    assertThat(shortage.inventoryId()).isEqualTo(HOT_SKU);
+                    assertThat(shortage.requested()).isEqualTo(1);
+                    assertThat(shortage.available()).isZero();
+                });
+                rejected.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertThat(reserved.get()).isEqualTo(initialStock);
+        assertThat(rejected.get()).isEqualTo(THREADS * ATTEMPTS_PER_THREAD - initialStock);
+        assertThat(stock(HOT_SKU)).isZero();
+    }
+
+    @Test
+    void failedReservationLeavesNoPartialDecrement() throws Exception {
+        jdbcTemplate.update("INSERT INTO inventory (id, product_id, stock) VALUES (?, 1, 1000), (?, 1, 10)", HOT_SKU, OTHER_SKU);
+
+        AtomicInteger reserved = new AtomicInteger();
+        hammer(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> reservations.reserve(Map.of(HOT_SKU, 1, OTHER_SKU, 1)));
+                reserved.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                assertThat(e.getShortages()).extracting(InsufficientStockException.Shortage::inventoryId).containsExactly(OTHER_SKU);
+            }
+            return null;
+        });
+
+        assertThat(reserved.get()).isEqualTo(10);
+        assertThat(stock(OTHER_SKU)).isZero();
+        assertThat(stock(HOT_SKU)).isEqualTo(1000 - 10);
+    }
+
+    @Test
+    void reservationsAndReleasesOverTheSameItemsNeverDeadlock() throws Exception {
+        jdbcTemplate.update("INSERT INTO inventory (id, product_id, stock) VALUES (?, 1, 100000), (?, 1, 100000)", HOT_SKU, OTHER_SKU);
+
+        AtomicLong net = new AtomicLong();
+        AtomicInteger turn = new AtomicInteger();
+        hammer(() -> {
+            // Alternate the order of the items in the request and mix in releases
+            boolean release = turn.incrementAndGet() % 3 == 0;
+            Map<Long, Integer> quantities = turn.get() % 2 == 0
+                    ? Map.of(HOT_SKU, 2, OTHER_SKU, 3)
+                    : Map.of(OTHER_SKU, 3, HOT_SKU, 2);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (release) {
+                    reservations.release(quantities);
+                } else {
+                    reservations.reserve(quantities);
+                }
+            });
+            net.addAndGet(release ? -1 : 1);
+            return null;
+        });
+
+        assertThat(stock(HOT_SKU)).isEqualTo(100000 - 2 * net.get());
+        assertThat(stock(OTHER_SKU)).isEqualTo(100000 - 3 * net.get());
+    }
+
+    @Test
+    void emptyReservationIsANoOp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            reservations.reserve(Map.of());
+            reservations.release(Map.of());
+        });
+    }
+
+    /**
+     * Runs the action {@link #ATTEMPTS_PER_THREAD} times on each of {@link #THREADS} threads started together,
+     * failing on the first unexpected exception.
+     */
+    private void hammer(Callable<Void> action) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(threads.submit(() -> {
+                start.await();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    action.call();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private static int stock(long inventoryId) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM inventory WHERE id = ?", Integer.class, inventoryId);
+    }
+}
@@ -0,0 +1,140 @@
+package com.sunflowers.ecommerce.order.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sunflowers.ecommerce.order.controller.PayPalController;
+import com.sunflowers.ecommerce.order.data.PaypalOrderRequest;
+import com.sunflowers.ecommerce.order.response.PaypalOrderResponse;
+import com.sunflowers.ecommerce.order.service.PaypalService;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PayPalResilienceTest {
+
+    private PayPalStub stub;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new PayPalStub();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void transientFailuresAreRetriedWithTheSameIdempotencyKey() throws Exception {
+        stub.nextOrderStatuses(503, 429);
+        PayPalHttpClient client = client(stub.config());
+
+        PaypalOrderResponse response = client.createOrder(PaypalOrderRequest.builder().build(), "order-42");
+
+        assertThat(response.getId()).isEqualTo("ORDER-1");
+        assertThat(stub.orderRequests()).isEqualTo(3);
+        assertThat(stub.orderRequestIds()).containsOnly("order-42");
+    }
+
+    @Test
+    void retriesStopAfterTheConfiguredAttempts() {
+        stub.defaultOrderStatus(503);
+        PayPalHttpClient client = client(stub.config());
+
+        assertThatThrownBy(() -> client.createOrder(PaypalOrderRequest.builder().build(), "order-42"))
+                .isInstanceOf(PayPalServerException.class);
+        assertThat(stub.orderRequests()).isEqualTo(3);
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingPayPal() throws Exception {
+        stub.defaultOrderStatus(503);
+        PaypalConfig config = stub.config();
+        config.setRetryMaxAttempts(1);
+        config.setCircuitWindowSize(4);
+        config.setCircuitOpenDuration(Duration.ofMinutes(1));
+        PayPalHttpClient client = client(config);
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.createOrder(PaypalOrderRequest.builder().build(), "order-42"))
+                    .isInstanceOf(PayPalServerException.class);
+        }
+        int requestsBeforeOpen = stub.orderRequests();
+
+        assertThatThrownBy(() -> client.createOrder(PaypalOrderRequest.builder().build(), "order-42"))
+                .isInstanceOf(CallNotPermittedException.class);
+        assertThat(stub.orderRequests()).isEqualTo(requestsBeforeOpen);
+        assertThat(meterRegistry.counter("paypal.circuit.transitions", "from", "CLOSED", "to", "OPEN").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fullBulkheadRejectsFurtherCallsImmediately() throws Exception {
+        stub.orderDelay(Duration.ofMillis(500));
+        PaypalConfig config = stub.config();
+        config.setMaxConcurrentCalls(2);
+        PayPalHttpClient client = client(config);
+        client.getAccessToken();
+
+        CompletableFuture<PaypalOrderResponse> first = client.createOrderAsync(PaypalOrderRequest.builder().build(), "order-1");
+        CompletableFuture<PaypalOrderResponse> second = client.createOrderAsync(PaypalOrderRequest.builder().build(), "order-2");
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.createOrder(PaypalOrderRequest.builder().build(), "order-3"))
+                .isInstanceOf(BulkheadFullException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(400));
+
+        assertThat(first.get().getId()).isEqualTo("ORDER-1");
+        assertThat(second.get().getId()).isEqualTo("ORDER-1");
+        assertThat(stub.orderRequestIds()).containsExactlyInAnyOrder("order-1", "order-2");
+    }
+
+    @Test
+    void fullBulkheadAndOpenCircuitAreAnsweredWith503() throws Exception {
+        PaypalService paypalService = mock(PaypalService.class);
+        PayPalController controller = new PayPalController();
+        ReflectionTestUtils.setField(controller, "paypalService", paypalService);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                .build();
+
+        when(paypalService.createOrder(any(), any()))
+                .thenThrow(BulkheadFullException.createBulkheadFullException(Bulkhead.ofDefaults("paypal")))
+                .thenThrow(CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("paypal")));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/v1/checkout/paypal")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"addressId\":\"a\"}"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.statusCode").value(503))
+                    .andExpect(jsonPath("$.success").value(false));
+        }
+    }
+
+    private PayPalHttpClient client(PaypalConfig config) {
+        return new PayPalHttpClient(config, new ObjectMapper(), new PayPalResilience(config, meterRegistry));
+    }
+}
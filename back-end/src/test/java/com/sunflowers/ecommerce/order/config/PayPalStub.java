@@ -0,0 +1,149 @@
+package com.sunflowers.ecommerce.order.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the PayPal API serving the token and order endpoints, with injectable statuses and delays.
+ */
+class PayPalStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicInteger orderRequests = new AtomicInteger();
+    private final List<String> orderRequestIds = new CopyOnWriteArrayList<>();
+    private final Queue<Integer> orderStatuses = new ConcurrentLinkedQueue<>();
+
+    private volatile int tokenStatus = 200;
+    private volatile long expiresIn = 32400;
+    private volatile Duration tokenDelay = Duration.ZERO;
+    private volatile int defaultOrderStatus = 201;
+    private volatile Duration orderDelay = Duration.ZERO;
+
+    PayPalStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/oauth2/token", this::token);
+        server.createContext("/v2/checkout/orders", this::order);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    PaypalConfig config() {
+        PaypalConfig config = new PaypalConfig();
+        config.setBaseUrl(baseUrl());
+        config.setClientId("client");
+        config.setSecret("secret");
+        config.setRequestTimeout(Duration.ofSeconds(5));
+        config.setRetryInitialBackoff(Duration.ofMillis(10));
+        return config;
+    }
+
+    int tokenRequests() {
+        return tokenRequests.get();
+    }
+
+    int orderRequests() {
+        return orderRequests.get();
+    }
+
+    List<String> orderRequestIds() {
+        return orderRequestIds;
+    }
+
+    void tokenStatus(int status) {
+        tokenStatus = status;
+    }
+
+    void expiresIn(long seconds) {
+        expiresIn = seconds;
+    }
+
+    void tokenDelay(Duration delay) {
+        tokenDelay = delay;
+    }
+
+    /**
+     * Answers the next order requests with the given statuses, then with the default status.
+     */
+    void nextOrderStatuses(Integer... statuses) {
+        orderStatuses.addAll(List.of(statuses));
+    }
+
+    void defaultOrderStatus(int status) {
+        defaultOrderStatus = status;
+    }
+
+    void orderDelay(Duration delay) {
+        orderDelay = delay;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void token(HttpExchange exchange) throws IOException {
+        int number = tokenRequests.incrementAndGet();
+        pause(tokenDelay);
+        int status = tokenStatus;
+        respond(exchange, status, status == 200
+                ? "{\"access_token\":\"token-" + number + "\",\"token_type\":\"Bearer\",\"expires_in\":" + expiresIn + "}"
+                : "{\"error\":\"invalid_client\"}");
+    }
+
+    private void order(HttpExchange exchange) throws IOException {
+        orderRequests.incrementAndGet();
+        orderRequestIds.add(exchange.getRequestHeaders().getFirst("PayPal-Request-Id"));
+        pause(orderDelay);
+        Integer next = orderStatuses.poll();
+        int status = next == null ? defaultOrderStatus : next;
+        respond(exchange, status, status / 100 == 2
+                ? "{\"id\":\"ORDER-1\",\"status\":\"CREATED\",\"links\":[]}"
+                : "{\"name\":\"INTERNAL_SERVER_ERROR\"}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        try (InputStream request = exchange.getRequestBody()) {
+            request.readAllBytes();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(bytes);
+        }
+    }
+
+    private static void pause(Duration delay) {
+        if (delay.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.sunflowers.ecommerce.order.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaypalAccessTokenHolderTest {
+
+    private static final int CALLERS = 32;
+
+    private PayPalStub stub;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new PayPalStub();
+        callers = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        stub.close();
+    }
+
+    @Test
+    void concurrentCallersShareASingleTokenRequest() throws Exception {
+        stub.tokenDelay(Duration.ofMillis(300));
+        PayPalHttpClient client = client(stub.config());
+
+        Set<String> tokens = getConcurrently(client);
+
+        assertThat(stub.tokenRequests()).isEqualTo(1);
+        assertThat(tokens).containsExactly("token-1");
+    }
+
+    @Test
+    void tokenIsReusedUntilItsRefreshWindowAndThenRefreshedOnceInTheBackground() throws Exception {
+        stub.expiresIn(3);
+        PaypalConfig config = stub.config();
+        config.setTokenRefreshSkew(Duration.ofSeconds(2));
+        PayPalHttpClient client = client(config);
+
+        assertThat(client.getAccessToken().getAccessToken()).isEqualTo("token-1");
+        assertThat(getConcurrently(client)).containsExactly("token-1");
+        assertThat(stub.tokenRequests()).isEqualTo(1);
+
+        Thread.sleep(1200);
+        stub.tokenDelay(Duration.ofMillis(300));
+        // Inside the refresh window the current token is still handed out while one refresh runs
+        assertThat(getConcurrently(client)).containsExactly("token-1");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!client.getAccessToken().getAccessToken().equals("token-2") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(client.getAccessToken().getAccessToken()).isEqualTo("token-2");
+        assertThat(stub.tokenRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedTokenRequestIsNotCached() throws Exception {
+        stub.tokenStatus(401);
+        PayPalHttpClient client = client(stub.config());
+
+        assertThatThrownBy(client::getAccessToken).isInstanceOf(IllegalStateException.class);
+
+        stub.tokenStatus(200);
+        assertThat(client.getAccessToken().getAccessToken()).isEqualTo("token-2");
+        assertThat(stub.tokenRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void serverErrorOnTokenRequestIsReportedAsTransient() {
+        stub.tokenStatus(503);
+        PayPalHttpClient client = client(stub.config());
+
+        assertThatThrownBy(client::getAccessToken).isInstanceOf(PayPalServerException.class);
+    }
+
+    private Set<String> getConcurrently(PayPalHttpClient client) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            Callable<String> call = () -> {
+                start.await();
+                return client.getAccessToken().getAccessToken();
+            };
+            results.add(callers.submit(call));
+        }
+        start.countDown();
+
+        List<String> tokens = new ArrayList<>();
+        for (Future<String> result : results) {
+            tokens.add(result.get());
+        }
+        return tokens.stream().collect(Collectors.toSet());
+    }
+
+    private static PayPalHttpClient client(PaypalConfig config) {
+        return new PayPalHttpClient(config, new ObjectMapper(), new PayPalResilience(config, new SimpleMeterRegistry()));
+    }
+}
@@ -0,0 +1,127 @@
+package com.sunflowers.ecommerce.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sunflowers.ecommerce.auth.entity.User;
+import com.sunflowers.ecommerce.cart.service.CartStore;
+import com.sunflowers.ecommerce.email.EmailService;
+import com.sunflowers.ecommerce.inventory.service.StockReservationService;
+import com.sunflowers.ecommerce.order.dto.OrderDto;
+import com.sunflowers.ecommerce.product.service.CatalogDataset;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the statements Hibernate runs to load and serialize a page of the user's orders, which must not grow with
+ * the number of orders, order details or products on the page.
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OrderService.class)
+@Testcontainers(disabledWithoutDocker = true)
+class OrderQueryCountTest {
+
+    /**
+     * The page of orders, the total count, the user, the order details, and the inventories, products, colors and
+     * images they lead to, each loaded once for the whole page.
+     */
+    private static final int MAX_STATEMENTS = 8;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @MockBean
+    private CartStore cartStore;
+
+    @MockBean
+    private StockReservationService stockReservationService;
+
+    @MockBean
+    private EmailService emailService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    void seed() {
+        CatalogDataset.seed(jdbcTemplate, 100, 10);
+    }
+
+    @Test
+    void ordersPageIsLoadedWithTheSameQueriesWhateverItsDetails() throws Exception {
+        User fewDetails = userWithOrders("few@example.com", 6, 1);
+        User manyDetails = userWithOrders("many@example.com", 6, 3);
+
+        long fewStatements = statementsToSerialize(fewDetails);
+        long manyStatements = statementsToSerialize(manyDetails);
+
+        assertThat(manyStatements).isEqualTo(fewStatements);
+        assertThat(manyStatements).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    /**
+     * Inserts a user whose orders each buy items of different products.
+     */
+    private User userWithOrders(String email, int orders, int detailsPerOrder) {
+        UUID userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, email, password, phone, registration_date, role) " +
+                "VALUES (?, 'Test', 'Buyer', ?, 'secret', '600000000', now(), 'USER')", userId, email);
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, address, creation_date, shipping_price, total_price, order_status) " +
+                "SELECT gen_random_uuid(), ?, 'Main street 1', now() - o * interval '1 hour', 5, 50, 'COMPLETED' " +
+                "FROM generate_series(1, ?) o", userId, orders);
+        // Inventory (p - 1) * 10 + 1 is the first inventory of product p
+        jdbcTemplate.update("INSERT INTO order_detail (id, order_id, inventory_id, amount, unit_price) " +
+                "SELECT gen_random_uuid(), o.id, ((o.n - 1) * ? + k) * 10 + 1, 1, 10 " +
+                "FROM (SELECT id, row_number() OVER (ORDER BY id) AS n FROM orders WHERE user_id = ?) o, generate_series(0, ? - 1) k",
+                detailsPerOrder, userId, detailsPerOrder);
+        return entityManager.find(User.class, userId);
+    }
+
+    /**
+     * Loads the first page of the user's orders from an empty persistence context and serializes it like the
+     * controller would, and returns the number of statements prepared meanwhile.
+     */
+    private long statementsToSerialize(User user) throws Exception {
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<OrderDto> orders = orderService.getMyOrders(user, 0).getBody().getData().getContent();
+        assertThat(orders).hasSize(5);
+        objectMapper.writeValueAsString(orders);
+        return statistics.getPrepareStatementCount();
+    }
+}
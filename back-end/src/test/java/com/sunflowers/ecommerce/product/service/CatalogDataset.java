@@ -0,0 +1,86 @@
+package com.sunflowers.ecommerce.product.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Generates a catalog straight into the tables created by Hibernate, for tests and benchmarks that need more products
+ * than can reasonably be saved through JPA.
+ * <p>
+ * Product {@code p} is named after an adjective, a fabric and a garment picked from {@code p}, is in three of
+ * {@value #CATEGORIES} categories, and has {@code inventoriesPerProduct} inventories spread over the five sizes and
+ * {@value #COLORS} colors, plus two images.
+ */
+public final class CatalogDataset {
+
+    public static final int CATEGORIES = 30;
+    public static final int COLORS = 20;
+
+    private static final String ADJECTIVES = "ARRAY['red', 'blue', 'black', 'white', 'green', 'striped', 'floral', 'vintage', 'classic', 'summer']";
+    private static final String FABRICS = "ARRAY['linen', 'cotton', 'silk', 'denim', 'wool', 'leather', 'satin', 'velvet', 'jersey', 'tweed']";
+    private static final String GARMENTS = "ARRAY['dress', 'shirt', 'jacket', 'skirt', 'scarf', 'coat', 'blouse', 'trousers', 'sweater', 'shorts']";
+    private static final String SIZES = "ARRAY['XS', 'S', 'M', 'L', 'XL']";
+
+    private CatalogDataset() {
+    }
+
+    /**
+     * Inserts the catalog and refreshes the planner statistics.
+     *
+     * @param jdbcTemplate          the template of the database to fill
+     * @param products              the number of products
+     * @param inventoriesPerProduct the number of inventories of each product, at most 5 per color
+     */
+    public static void seed(JdbcTemplate jdbcTemplate, int products, int inventoriesPerProduct) {
+        jdbcTemplate.update("INSERT INTO color (name, code) " +
+                "SELECT 'color-' || c, '#' || lpad(upper(to_hex(c * 40000)), 6, '0') FROM generate_series(0, ?) c", COLORS - 1);
+        jdbcTemplate.update("INSERT INTO category (name, description) " +
+                "SELECT 'category-' || c, 'Category ' || c FROM generate_series(0, ?) c", CATEGORIES - 1);
+
+        jdbcTemplate.update("INSERT INTO product (id, creation_date, last_update, name, description, price, rating, rating_sum, rating_count) " +
+                "SELECT p, now() - p * interval '1 minute', now(), " +
+                "initcap((" + ADJECTIVES + ")[1 + p % 10] || ' ' || (" + FABRICS + ")[1 + p / 10 % 10] || ' ' || (" + GARMENTS + ")[1 + p / 100 % 10]) || ' ' || p, " +
+                "'A ' || (" + FABRICS + ")[1 + p / 7 % 10] || ' ' || (" + GARMENTS + ")[1 + p / 100 % 10] || ' for every day, in a ' || " +
+                "(" + ADJECTIVES + ")[1 + p / 3 % 10] || ' finish. Model ' || p || '.', " +
+                "1 + (p * 7919 % 50000) / 100.0, CASE WHEN p % 4 = 0 THEN NULL ELSE 1 + p % 5 END, " +
+                "CASE WHEN p % 4 = 0 THEN 0 ELSE 1 + p % 5 END, CASE WHEN p % 4 = 0 THEN 0 ELSE 1 END " +
+                "FROM generate_series(1, ?) p", products);
+        jdbcTemplate.update("INSERT INTO product_category (product_id, category_id) " +
+                "SELECT p, 'category-' || ((p + k * 7) % ?) FROM generate_series(1, ?) p, generate_series(0, 2) k", CATEGORIES, products);
+        jdbcTemplate.update("INSERT INTO inventory (id, product_id, color_name, size, stock, version) " +
+                "SELECT (p - 1) * ? + k + 1, p, 'color-' || ((p + k / 5 * 3) % ?), (" + SIZES + ")[1 + k % 5], p % 20, 0 " +
+                "FROM generate_series(1, ?) p, generate_series(0, ? - 1) k",
+                inventoriesPerProduct, COLORS, products, inventoriesPerProduct);
+        jdbcTemplate.update("INSERT INTO product_image (id, url, product_id, upload_order) " +
+                "SELECT gen_random_uuid(), 'https://images.example.com/' || p || '/' || k || '.jpg', p, (p - 1) * 2 + k " +
+                "FROM generate_series(1, ?) p, generate_series(1, 2) k", products);
+
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    /**
+     * Runs the query a few times to warm up the caches and the JIT, then returns the median duration of the measured runs.
+     *
+     * @param warmups the number of runs that are not measured
+     * @param runs    the number of measured runs
+     * @param query   the query to time
+     * @return the median duration
+     */
+    public static Duration median(int warmups, int runs, Supplier<?> query) {
+        for (int i = 0; i < warmups; i++) {
+            query.get();
+        }
+
+        long[] durations = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            query.get();
+            durations[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(durations);
+        return Duration.ofNanos(durations[runs / 2]);
+    }
+}
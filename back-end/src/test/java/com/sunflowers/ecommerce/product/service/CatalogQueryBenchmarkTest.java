@@ -0,0 +1,214 @@
+package com.sunflowers.ecommerce.product.service;
+
+import com.sunflowers.ecommerce.inventory.entity.Inventory;
+import com.sunflowers.ecommerce.product.entity.Category;
+import com.sunflowers.ecommerce.product.entity.Product;
+import com.sunflowers.ecommerce.product.repository.ProductRepository;
+import com.sunflowers.ecommerce.product.request.ProductRequest;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the catalog listing query with the join-based query it replaced, over 100k products and 1M inventories.
+ * Run with {@code ./gradlew benchmark}.
+ * <p>
+ * The joins of the old query repeat a product once per matching inventory (and per matching pair of inventories
+ * when both sizes and colors are filtered), so its totals are inflated and Postgres sorts and pages the multiplied
+ * rows. The current query pages product IDs filtered with EXISTS subqueries, then loads only the page.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductService.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogQueryBenchmarkTest {
+
+    private static final int PRODUCTS = 100_000;
+    private static final int INVENTORIES_PER_PRODUCT = 10;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static boolean seeded;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    void seed() {
+        if (!seeded) {
+            CatalogDataset.seed(jdbcTemplate, PRODUCTS, INVENTORIES_PER_PRODUCT);
+            seeded = true;
+        }
+    }
+
+    @Test
+    void sizeAndColorFilter() {
+        ProductRequest request = request("price");
+        request.setSizes(List.of("M", "L"));
+        request.setColors(List.of("color-1", "color-2"));
+
+        Timings timings = compare("sizes and colors", request);
+
+        assertThat(timings.current()).isLessThan(timings.legacy());
+    }
+
+    @Test
+    void categoryFilter() {
+        ProductRequest request = request("name");
+        request.setCategories(List.of("category-1", "category-8"));
+
+        // Both queries match a product once here, since the old one grouped by product; only the timings are reported
+        compare("categories", request);
+    }
+
+    @Test
+    void deepPageWithPriceAndSizeFilter() {
+        ProductRequest request = request("creationDate");
+        request.setPage(500);
+        request.setSizes(List.of("XS"));
+        request.setMinPrice(BigDecimal.valueOf(50));
+        request.setMaxPrice(BigDecimal.valueOf(300));
+
+        Timings timings = compare("deep page", request);
+
+        assertThat(timings.current()).isLessThan(timings.legacy());
+    }
+
+    private Timings compare(String scenario, ProductRequest request) {
+        Pageable pageable = PageRequest.of(request.getPage(), request.getPageSize(), Sort.by(request.getSortBy()));
+
+        Page<Product> current = productService.getProducts(request);
+        Page<Product> legacy = productRepository.findAll(legacyFilter(request), pageable);
+        long expected = jdbcTemplate.queryForObject(expectedCount(request), Long.class);
+
+        assertThat(current.getTotalElements()).isEqualTo(expected);
+        assertThat(current.getContent()).hasSize(request.getPageSize());
+        assertThat(current.getContent()).extracting(Product::getId).doesNotHaveDuplicates();
+
+        Duration legacyTime = CatalogDataset.median(2, 5, () -> productRepository.findAll(legacyFilter(request), pageable));
+        Duration currentTime = CatalogDataset.median(2, 5, () -> productService.getProducts(request));
+
+        System.out.printf("%s: joins %d ms (total %d), EXISTS and ids first %d ms (total %d)%n", scenario,
+                legacyTime.toMillis(), legacy.getTotalElements(), currentTime.toMillis(), current.getTotalElements());
+        return new Timings(legacyTime, currentTime);
+    }
+
+    private static ProductRequest request(String sortBy) {
+        ProductRequest request = new ProductRequest();
+        request.setPageSize(20);
+        request.setSortBy(sortBy);
+        return request;
+    }
+
+    /**
+     * Counts the matching products with plain SQL, as the reference for the totals.
+     */
+    private static String expectedCount(ProductRequest request) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM product p WHERE p.deleted IS NULL");
+        if (request.getMinPrice() != null) {
+            sql.append(" AND p.price >= ").append(request.getMinPrice());
+        }
+        if (request.getMaxPrice() != null) {
+            sql.append(" AND p.price <= ").append(request.getMaxPrice());
+        }
+        if (request.getCategories() != null) {
+            for (String category : request.getCategories()) {
+                sql.append(" AND EXISTS (SELECT 1 FROM product_category c WHERE c.product_id = p.id AND c.category_id = '")
+                        .append(category).append("')");
+            }
+        }
+        if (request.getSizes() != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM inventory i WHERE i.product_id = p.id AND i.size IN ('")
+                    .append(String.join("', '", request.getSizes())).append("'))");
+        }
+        if (request.getColors() != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM inventory i WHERE i.product_id = p.id AND i.color_name IN ('")
+                    .append(String.join("', '", request.getColors())).append("'))");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * The catalog filter as it was before the listing query was redesigned: inner joins on categories and
+     * inventories, grouped by product when filtering by category.
+     */
+    private static Specification<Product> legacyFilter(ProductRequest request) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            predicates.add(cb.isNull(root.get("deleted")));
+
+            if (request.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), request.getMinPrice()));
+            }
+            if (request.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), request.getMaxPrice()));
+            }
+
+            if (request.getCategories() != null && !request.getCategories().isEmpty()) {
+                Join<Product, Category> join = root.join("categories", JoinType.INNER);
+                predicates.add(join.get("name").in(request.getCategories()));
+                query.groupBy(root.get("id"));
+                query.having(cb.equal(cb.count(root.get("id")), request.getCategories().size()));
+            }
+
+            if (request.getSizes() != null && !request.getSizes().isEmpty()) {
+                Join<Product, Inventory> inventoryJoin = root.join("inventories", JoinType.INNER);
+                predicates.add(inventoryJoin.get("size").in(request.getSizes()));
+            }
+
+            if (request.getColors() != null && !request.getColors().isEmpty()) {
+                Join<Product, Inventory> inventoryJoin = root.join("inventories", JoinType.INNER);
+                predicates.add(inventoryJoin.get("color").get("name").in(request.getColors()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private record Timings(Duration legacy, Duration current) {
+    }
+}
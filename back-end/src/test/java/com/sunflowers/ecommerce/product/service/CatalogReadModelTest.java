@@ -0,0 +1,83 @@
+package com.sunflowers.ecommerce.product.service;
+
+import com.sunflowers.ecommerce.product.request.ProductRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that listings sorted by name come out of the read model in the order of the database collation, which
+ * differs from Java string order for mixed case and punctuation.
+ */
+@DataJpaTest(showSql = false, properties = "catalog.read-model.enabled=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CatalogReadModel.class)
+@Testcontainers(disabledWithoutDocker = true)
+class CatalogReadModelTest {
+
+    private static final int PRODUCTS = 60;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private CatalogReadModel catalogReadModel;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    void seed() {
+        CatalogDataset.seed(jdbcTemplate, PRODUCTS, 1);
+        jdbcTemplate.update("UPDATE product SET name = CASE id % 4 WHEN 0 THEN lower(name) WHEN 1 THEN upper(name) " +
+                "WHEN 2 THEN '_' || name ELSE name END");
+        catalogReadModel.load();
+    }
+
+    @Test
+    void namesAreSortedLikeTheDatabase() {
+        assertThat(readModelIds(Sort.Direction.ASC)).isEqualTo(databaseIds("ASC"));
+        assertThat(readModelIds(Sort.Direction.DESC)).isEqualTo(databaseIds("DESC"));
+    }
+
+    @Test
+    void renamedProductIsSortedLikeTheDatabase() {
+        jdbcTemplate.update("UPDATE product SET name = 'a Plain Shirt' WHERE id = 7");
+        catalogReadModel.onProductChanged(new ProductChangedEvent(List.of(7)));
+
+        assertThat(readModelIds(Sort.Direction.ASC)).isEqualTo(databaseIds("ASC"));
+    }
+
+    private List<Integer> readModelIds(Sort.Direction direction) {
+        Pageable pageable = PageRequest.of(0, PRODUCTS, Sort.by(direction, "name"));
+        return catalogReadModel.findIds(new ProductRequest(), pageable).orElseThrow().getContent();
+    }
+
+    private List<Integer> databaseIds(String direction) {
+        return jdbcTemplate.queryForList("SELECT id FROM product WHERE deleted IS NULL ORDER BY name " + direction + ", id",
+                Integer.class);
+    }
+}
@@ -0,0 +1,60 @@
+package com.sunflowers.ecommerce.product.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that CSV records are split as RFC 4180 describes, including the quoted fields spreadsheets write.
+ */
+class CsvRecordReaderTest {
+
+    @Test
+    void quotedFieldsKeepTheirCommasAndDoubledQuotes() throws IOException {
+        assertThat(readAll("a,\"b, c\",\"say \"\"hi\"\"\",\"\"\n"))
+                .containsExactly(List.of("a", "b, c", "say \"hi\"", ""));
+    }
+
+    @Test
+    void quotedFieldsKeepTheirLineBreaks() throws IOException {
+        assertThat(readAll("name,description\r\nShirt,\"A shirt\r\nwith a collar\"\r\nHat,\"A hat\nfor the sun\""))
+                .containsExactly(
+                        List.of("name", "description"),
+                        List.of("Shirt", "A shirt\r\nwith a collar"),
+                        List.of("Hat", "A hat\nfor the sun"));
+    }
+
+    @Test
+    void byteOrderMarkIsSkipped() throws IOException {
+        assertThat(readAll("\uFEFF\"name\",price\nShirt,10\n"))
+                .containsExactly(List.of("name", "price"), List.of("Shirt", "10"));
+    }
+
+    @Test
+    void shortRecordsAndEmptyLinesAreReadAsWritten() throws IOException {
+        assertThat(readAll("a,b,c\n\nd\n\r\ne,\n"))
+                .containsExactly(List.of("a", "b", "c"), List.of("d"), List.of("e", ""));
+    }
+
+    @Test
+    void unterminatedQuoteIsRejected() {
+        assertThatThrownBy(() -> readAll("a,\"b\nc"))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Unterminated quoted field");
+    }
+
+    private static List<List<String>> readAll(String content) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(content));
+        List<List<String>> records = new ArrayList<>();
+        for (List<String> fields = reader.read(); fields != null; fields = reader.read()) {
+            records.add(fields);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,120 @@
+package com.sunflowers.ecommerce.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sunflowers.ecommerce.product.response.ProductImportResponse;
+import com.sunflowers.ecommerce.response.CachedResponses;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Imports CSV files into a real Postgres, in chunks of 5 rows. Each chunk commits on its own, so the test does not
+ * run in a transaction.
+ */
+@DataJpaTest(showSql = false, properties = "product.import.batch-size=5")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductImportService.class, ObjectMapper.class})
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductImportServiceTest {
+
+    private static final String HEADER = "name,description,price,categories,inventories\n";
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockBean
+    private CachedResponses cachedResponses;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE product, inventory, product_category, category, color CASCADE");
+        jdbcTemplate.update("INSERT INTO category (name, description) VALUES ('shirts', 'Shirts'), ('summer', 'Summer'), " +
+                "('sale', 'Sale')");
+        jdbcTemplate.update("INSERT INTO color (name, code) VALUES ('red', '#FF0000')");
+    }
+
+    @Test
+    void quotedFieldsAndByteOrderMarkAreImported() throws IOException {
+        ProductImportResponse response = productImportService.importCsv(csv("\uFEFF\"Name\",\"Description\"," +
+                "price,categories,inventories\n" +
+                "\"Shirt, linen\",\"A shirt\r\nwith a \"\"camp\"\" collar\",19.99,shirts|summer|sale,M:red:5|L:red:2\n"));
+
+        assertThat(response.getImported()).isEqualTo(1);
+        assertThat(response.getErrors()).isEmpty();
+        assertThat(jdbcTemplate.queryForMap("SELECT name, description FROM product"))
+                .containsEntry("name", "Shirt, linen")
+                .containsEntry("description", "A shirt\r\nwith a \"camp\" collar");
+        assertThat(jdbcTemplate.queryForObject("SELECT sum(stock) FROM inventory", Integer.class)).isEqualTo(7);
+    }
+
+    @Test
+    void missingColumnsAreRejected() {
+        assertThatThrownBy(() -> productImportService.importCsv(csv("name,description,categories\n")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Missing columns: price, inventories");
+    }
+
+    @Test
+    void rowRejectedByTheDatabaseIsIsolatedFromItsChunk() throws IOException {
+        jdbcTemplate.execute("ALTER TABLE product DROP CONSTRAINT IF EXISTS product_name_not_rejected");
+        jdbcTemplate.execute("ALTER TABLE product ADD CONSTRAINT product_name_not_rejected CHECK (name <> 'Rejected')");
+        StringBuilder content = new StringBuilder(HEADER);
+        for (int row = 1; row <= 7; row++) {
+            content.append(row == 3 ? "Rejected" : "Product " + row).append(",A product,10,shirts|summer|sale,M:red:1\n");
+        }
+
+        try {
+            ProductImportResponse response = productImportService.importCsv(csv(content.toString()));
+
+            assertThat(response.getRows()).isEqualTo(7);
+            assertThat(response.getImported()).isEqualTo(6);
+            assertThat(response.getFailed()).isEqualTo(1);
+            assertThat(response.getErrors()).singleElement().satisfies(error -> {
+                assertThat(error.row()).isEqualTo(3);
+                assertThat(error.message()).contains("product_name_not_rejected");
+            });
+            assertThat(jdbcTemplate.queryForList("SELECT name FROM product ORDER BY id", String.class))
+                    .containsExactly("Product 1", "Product 2", "Product 4", "Product 5", "Product 6", "Product 7");
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE product DROP CONSTRAINT product_name_not_rejected");
+        }
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
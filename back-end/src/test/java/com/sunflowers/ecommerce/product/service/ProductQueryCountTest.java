@@ -0,0 +1,101 @@
+package com.sunflowers.ecommerce.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sunflowers.ecommerce.product.request.ProductRequest;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the statements Hibernate runs to load and serialize catalog responses, which must not grow with the number
+ * of products, inventories or images returned.
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductService.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ProductQueryCountTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    void seed() {
+        CatalogDataset.seed(jdbcTemplate, 100, 10);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void listingPageIsLoadedWithTheSameQueriesWhateverItsSize(int pageSize) throws Exception {
+        ProductRequest request = new ProductRequest();
+        request.setPageSize(pageSize);
+
+        long statements = statementsToSerialize(() -> productService.getProducts(request).getContent());
+
+        // The page IDs, the total count, the products with their inventories and colors, and their images
+        assertThat(statements).isEqualTo(4);
+    }
+
+    @Test
+    void productDetailIsLoadedWithTwoQueries() throws Exception {
+        long statements = statementsToSerialize(() -> productService.getProductById(42L));
+
+        // The product with its inventories and colors, and its images
+        assertThat(statements).isEqualTo(2);
+    }
+
+    /**
+     * Loads the response from an empty persistence context and serializes it like the controller would, so every
+     * lazy association it exposes is loaded, and returns the number of statements prepared meanwhile.
+     */
+    private long statementsToSerialize(Supplier<?> response) throws Exception {
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Object loaded = response.get();
+        assertThat(loaded).isNotNull();
+        if (loaded instanceof List<?> list) {
+            assertThat(list).isNotEmpty();
+        }
+        objectMapper.writeValueAsString(loaded);
+        return statistics.getPrepareStatementCount();
+    }
+}
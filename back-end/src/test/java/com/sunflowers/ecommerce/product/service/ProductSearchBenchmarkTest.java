@@ -0,0 +1,158 @@
+package com.sunflowers.ecommerce.product.service;
+
+import com.sunflowers.ecommerce.product.config.ProductSearchIndexInitializer;
+import com.sunflowers.ecommerce.product.entity.Product;
+import com.sunflowers.ecommerce.product.repository.ProductRepository;
+import com.sunflowers.ecommerce.product.request.ProductRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Compares the full-text product search with the {@code LIKE '%name%'} filter it replaced, over 100k products.
+ * Run with {@code ./gradlew benchmark}.
+ * <p>
+ * The LIKE filter cannot use an index and scans every product, while the search uses the GIN index created by
+ * {@link ProductSearchIndexInitializer} over the name and description.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductService.class, ProductSearchIndexInitializer.class})
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductSearchBenchmarkTest {
+
+    private static final int PRODUCTS = 100_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static boolean seeded;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    void seed() {
+        if (!seeded) {
+            CatalogDataset.seed(jdbcTemplate, PRODUCTS, 2);
+            seeded = true;
+        }
+    }
+
+    /**
+     * Searches for a few products, which the index finds without reading the catalog, and for a word shared by a
+     * tenth of the catalog, where both queries read many rows and only the timings are reported.
+     */
+    @ParameterizedTest
+    @CsvSource({"Striped Silk Scarf 4, true", "jacket, false"})
+    void searchIsFasterThanLike(String name, boolean selective) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setPageSize(20);
+        Pageable pageable = PageRequest.of(0, 20, Sort.by("name"));
+
+        Page<Product> search = productService.getProducts(request);
+        Page<Product> like = productRepository.findAll(likeFilter(name), pageable);
+        assertThat(search.getContent()).isNotEmpty();
+        assertThat(search.getContent()).allSatisfy(product ->
+                assertThat((product.getName() + " " + product.getDescription()).toLowerCase()).contains(name.toLowerCase().split(" ")[0]));
+        // Every product the LIKE filter finds is also found by the search, which matches the description as well
+        assertThat(search.getTotalElements()).isGreaterThanOrEqualTo(like.getTotalElements());
+
+        Duration likeTime = CatalogDataset.median(2, 5, () -> productRepository.findAll(likeFilter(name), pageable));
+        Duration searchTime = CatalogDataset.median(2, 5, () -> productService.getProducts(request));
+
+        System.out.printf("\"%s\": LIKE %d ms (total %d), full-text %d ms (total %d)%n", name,
+                likeTime.toMillis(), like.getTotalElements(), searchTime.toMillis(), search.getTotalElements());
+        if (selective) {
+            assertThat(searchTime).isLessThan(likeTime);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jack", "silk scar", "STRIPED linen"})
+    void searchMatchesWordPrefixesInAnyOrderAndCase(String name) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setSortBy("relevance");
+
+        Page<Product> search = productService.getProducts(request);
+
+        assertThat(search.getContent()).isNotEmpty();
+        assertThat(search.getContent()).allSatisfy(product -> {
+            String text = (product.getName() + " " + product.getDescription()).toLowerCase();
+            for (String term : name.toLowerCase().split(" ")) {
+                assertThat(text).containsPattern("\\b" + term);
+            }
+        });
+    }
+
+    @Test
+    void relevanceRanksNameMatchesFirst() {
+        ProductRequest request = new ProductRequest();
+        request.setName("linen");
+        request.setSortBy("relevance");
+
+        Page<Product> search = productService.getProducts(request);
+
+        assertThat(search.getContent()).isNotEmpty();
+        assertThat(search.getContent().get(0).getName().toLowerCase()).contains("linen");
+    }
+
+    @Test
+    void relevanceWithoutSearchIsRejected() {
+        ProductRequest request = new ProductRequest();
+        request.setSortBy("relevance");
+
+        assertThatThrownBy(() -> productService.getProducts(request)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * The name filter as it was before the full-text search.
+     */
+    private static Specification<Product> likeFilter(String name) {
+        return (root, query, cb) -> cb.and(
+                cb.isNull(root.get("deleted")),
+                cb.like(cb.lower(root.get("name")), "%" + name.toLowerCase() + "%"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.sunflowers.ecommerce.product.service;
+
+import com.sunflowers.ecommerce.product.dto.ProductSlice;
+import com.sunflowers.ecommerce.product.entity.Product;
+import com.sunflowers.ecommerce.product.request.ProductRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Walks whole listings in cursor mode and checks that they list every product once, in the order of the database,
+ * including the products without a rating.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductService.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ProductSliceTest {
+
+    private static final int PRODUCTS = 100;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    void seed() {
+        CatalogDataset.seed(jdbcTemplate, PRODUCTS, 1);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"rating, asc", "rating, desc", "price, asc", "name, desc"})
+    void cursorWalksTheWholeListingInDatabaseOrder(String sortBy, String direction) {
+        List<Integer> walked = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            ProductRequest request = new ProductRequest();
+            request.setSortBy(sortBy);
+            request.setDirection(direction);
+            request.setPageSize(7);
+            request.setCursor(cursor);
+
+            ProductSlice<Product> slice = productService.getProductSlice(request);
+            slice.products().forEach(product -> walked.add(product.getId()));
+            cursor = slice.nextCursor();
+        }
+
+        assertThat(walked).isEqualTo(jdbcTemplate.queryForList(
+                "SELECT id FROM product WHERE deleted IS NULL ORDER BY " + sortBy + " " + direction + ", id", Integer.class));
+    }
+}
@@ -111,7 +111,7 @@ function Cart({editable = true}) {
             <h3 className="font-semibold text-center text-gray-600 text-xs uppercase w-1/5">Total</h3>
           </div>
           {carts?.map(cart => (
-            <div key={cart.cartItemId} className="flex items-center hover:bg-gray-100 -mx-8 px-6 py-5">
+            <div key={cart.inventory.id} className="flex items-center hover:bg-gray-100 -mx-8 px-6 py-5">
               <div className="flex w-2/5">
                 <div className="w-20">
                   <img className="h-24" src={cart.inventory.product.productImages[0].url} alt={cart.inventory.product.name} />